@@ -66,9 +66,10 @@ classSelector: CLASS_IDENT;
 idSelector: ID_IDENT;
 
 //--------------Expressions--------------
-expression:
-    expression MUL expression |
-    expression (PLUS | MIN) expression |
+//Operators are matched as a flat list, the AST builder applies precedence (MUL before PLUS and MIN, both left-associative).
+//A left-recursive rule would nest one context per operator and overflow the stack on long chains.
+expression: operand ((MUL | PLUS | MIN) operand)*;
+operand:
     scalarLiteral |
     pixelLiteral |
     percentageLiteral |
@@ -0,0 +1,83 @@
+package nl.han.ica.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * A stack of scopes whose variables are kept in numbered slots instead of by name. A variable is addressed by the
+ * level of its scope (0 for the outermost scope) and its slot within that scope.
+ *
+ * @param <T> The type of the values stored for the variables.
+ */
+public class ScopeFrames<T> {
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[][] frames;
+    private int depth;
+
+    public ScopeFrames() {
+        frames = new Object[8][];
+        depth = 0;
+    }
+
+    /**
+     * Starts with the scopes that are open in outer. They are shared, not copied: outer must not change while
+     * these frames are in use, and only scopes pushed on these frames should get new values.
+     */
+    public ScopeFrames(ScopeFrames<T> outer) {
+        frames = Arrays.copyOf(outer.frames, Math.max(8, outer.frames.length));
+        depth = outer.depth;
+    }
+
+    /**
+     * @return Frames with a copy of every open scope, later changes to either do not show in the other.
+     */
+    public ScopeFrames<T> copy() {
+        ScopeFrames<T> copy = new ScopeFrames<>(this);
+        for (int level = 0; level < depth; level++) {
+            copy.frames[level] = frames[level].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Opens a new, empty innermost scope.
+     */
+    public void push() {
+        if (depth == frames.length) {
+            frames = Arrays.copyOf(frames, depth * 2);
+        }
+        //slots are only allocated when a scope gets its first variable
+        frames[depth++] = EMPTY;
+    }
+
+    /**
+     * Closes the innermost scope and forgets its variables.
+     */
+    public void pop() {
+        frames[--depth] = null;
+    }
+
+    /**
+     * @return The number of open scopes.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * @return The value in the given slot, or null if it was never set.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int level, int slot) {
+        Object[] frame = frames[level];
+        return slot < frame.length ? (T) frame[slot] : null;
+    }
+
+    public void set(int level, int slot, T value) {
+        Object[] frame = frames[level];
+        if (slot >= frame.length) {
+            frame = frames[level] = Arrays.copyOf(frame, Math.max(4, slot + 1 + (slot >> 1)));
+        }
+        frame[slot] = value;
+    }
+}
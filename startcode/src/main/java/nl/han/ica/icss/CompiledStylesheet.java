@@ -0,0 +1,133 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Expression;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.VariableAssignment;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.Diagnostic;
+import nl.han.ica.icss.checker.Diagnostics;
+import nl.han.ica.icss.checker.ExpressionTypeHelper;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.transforms.ExpressionCompiler;
+import nl.han.ica.icss.transforms.PersistentEvaluator;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A stylesheet that is parsed and checked once and then rendered to CSS many times, each time with other values
+ * for some of its global variables. For example one stylesheet for many themes that differ only in a few colors,
+ * widths and flags.
+ * <p>
+ * Rendering evaluates the checked AST with {@link PersistentEvaluator} and generates the result. The checked AST
+ * is never changed, all its expressions are compiled up front, so any number of threads can render at once.
+ */
+public class CompiledStylesheet {
+
+    private final AST ast;
+    //Type of each global variable, by name in order of declaration
+    private final Map<String, ExpressionType> variables;
+
+    private CompiledStylesheet(AST ast, Map<String, ExpressionType> variables) {
+        this.ast = ast;
+        this.variables = Collections.unmodifiableMap(variables);
+    }
+
+    /**
+     * Parses, checks and compiles a stylesheet.
+     *
+     * @throws IllegalArgumentException if the stylesheet has syntax errors or semantic errors, the message lists them.
+     */
+    public static CompiledStylesheet compile(String input) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(input);
+        if (!pipeline.isParsed()) {
+            throw new IllegalArgumentException("Stylesheet has errors: " + String.join(", ", pipeline.getErrors()));
+        }
+        AST ast = pipeline.getAST();
+        Checker checker = new Checker();
+        Diagnostics diagnostics = checker.check(ast);
+        if (diagnostics.hasErrors()) {
+            throw new IllegalArgumentException("Stylesheet has errors: " + diagnostics.getAll().stream()
+                    .map(Diagnostic::toString).collect(Collectors.joining(", ")));
+        }
+
+        Map<String, ExpressionType> variables = new LinkedHashMap<>();
+        for (ASTNode statement : ast.root.body) {
+            if (statement instanceof VariableAssignment) {
+                VariableAssignment assignment = (VariableAssignment) statement;
+                variables.put(assignment.name.name, checker.typeOf(assignment.expression));
+            }
+        }
+        compileExpressions(ast);
+        return new CompiledStylesheet(ast, variables);
+    }
+
+    /**
+     * Compiles the expressions of all statements, so rendering only reads the AST.
+     */
+    private static void compileExpressions(AST ast) {
+        ExpressionCompiler compiler = new ExpressionCompiler();
+        Deque<ASTNode> pending = new ArrayDeque<>();
+        pending.push(ast.root);
+        while (!pending.isEmpty()) {
+            ASTNode node = pending.pop();
+            if (node instanceof Expression) {
+                compiler.compile((Expression) node);
+            } else {
+                for (int i = 0; i < node.getChildCount(); i++) {
+                    pending.push(node.getChild(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The type of each global variable, by name in order of declaration.
+     */
+    public Map<String, ExpressionType> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return The CSS of the stylesheet with the values it declares.
+     */
+    public String render() {
+        return render(Collections.emptyMap());
+    }
+
+    /**
+     * Renders the stylesheet with other values for some of its global variables. Variables that are computed from
+     * a replaced variable are computed from the new value.
+     *
+     * @param overrides New values by variable name, each must have the type of the value the variable has in the
+     *                  stylesheet.
+     * @return The CSS of the stylesheet.
+     * @throws IllegalArgumentException if a name is not a global variable of the stylesheet or a value has another type.
+     */
+    public String render(Map<String, ? extends Literal> overrides) {
+        //the values that are checked are the ones that are used, even if the caller changes the map meanwhile
+        Map<String, Literal> values = Map.copyOf(overrides);
+        ExpressionTypeHelper expressionTypeHelper = new ExpressionTypeHelper();
+        for (Map.Entry<String, Literal> override : values.entrySet()) {
+            ExpressionType type = variables.get(override.getKey());
+            if (type == null) {
+                throw new IllegalArgumentException("Variable " + override.getKey() + " is not a global variable of the stylesheet");
+            }
+            ExpressionType valueType = override.getValue().accept(expressionTypeHelper, null);
+            if (valueType != type) {
+                throw new IllegalArgumentException("Variable " + override.getKey() + " does not accept a "
+                        + valueType.name().toLowerCase(Locale.ROOT) + " value");
+            }
+        }
+        return new Generator().generate(new PersistentEvaluator().evaluate(ast, values));
+    }
+}
@@ -2,30 +2,59 @@ package nl.han.ica.icss;
 
 import nl.han.ica.icss.ast.AST;
 import nl.han.ica.icss.checker.Checker;
-import nl.han.ica.icss.checker.SemanticError;
+import nl.han.ica.icss.checker.Diagnostic;
+import nl.han.ica.icss.checker.Diagnostics;
+import nl.han.ica.icss.checker.IncrementalChecker;
 import nl.han.ica.icss.generator.Generator;
 import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ByteBufferCharStream;
 import nl.han.ica.icss.parser.ICSSLexer;
 import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.parser.IncrementalParser;
+import nl.han.ica.icss.parser.ParseCache;
 import nl.han.ica.icss.transforms.Evaluator;
+import nl.han.ica.icss.transforms.PersistentEvaluator;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.PredictionMode;
 import org.antlr.v4.runtime.dfa.DFA;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Pipeline implements ANTLRErrorListener {
 
+    //Number of times the fast SLL parse failed and the input was parsed again with full LL
+    private static final AtomicLong fullContextFallbacks = new AtomicLong();
+
     private AST ast;
+    private boolean twoStageParsing = false;
+    private boolean singlePassParsing = false;
+    private ParseCache parseCache;
+    private boolean persistentTransform = false;
+    private boolean parallelCheck = false;
+    //Only set in incremental mode, they keep the state of the previous input
+    private IncrementalParser incrementalParser;
+    private IncrementalChecker incrementalChecker;
+    //Number of edits parsed since the last incremental check, only after one the changed statements are known
+    private int editsSinceCheck;
+    //The checked AST before the last persistent transform
+    private AST untransformedAST;
     private boolean parsed = false;
     private boolean checked = false;
     private boolean transformed = false;
     private List<String> errors;
+    //Problems found by the last check, null before a check
+    private Diagnostics diagnostics;
 
     public Pipeline() {
         errors = new ArrayList<>();
@@ -37,6 +66,13 @@ public class Pipeline implements ANTLRErrorListener {
     public List<String> getErrors() {
         return errors;
     }
+
+    /**
+     * @return The diagnostics of the last check, keyed by node, or null if the AST was not checked.
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
     public boolean isParsed() {
         return parsed;
     }
@@ -47,10 +83,151 @@ public class Pipeline implements ANTLRErrorListener {
         return transformed;
     }
 
+    /**
+     * Enables the fast parse mode: the input is first parsed with SLL prediction and bails out on the
+     * first error, only failing inputs are parsed again with full LL prediction and the normal error reporting.
+     *
+     * @param twoStageParsing true to try SLL first
+     */
+    public void setTwoStageParsing(boolean twoStageParsing) {
+        this.twoStageParsing = twoStageParsing;
+    }
+
+    /**
+     * Enables building the AST during the parse (with {@link ASTListener} as parse listener) instead of
+     * building a full parse tree first and walking it afterwards.
+     *
+     * @param singlePassParsing true to build the AST without a parse tree
+     */
+    public void setSinglePassParsing(boolean singlePassParsing) {
+        this.singlePassParsing = singlePassParsing;
+    }
+
+    /**
+     * Makes {@link #transform()} build a new AST with {@link PersistentEvaluator} instead of changing the
+     * checked AST in place. The checked AST stays available through {@link #getUntransformedAST()}.
+     *
+     * @param persistentTransform true to keep the checked AST
+     */
+    public void setPersistentTransform(boolean persistentTransform) {
+        this.persistentTransform = persistentTransform;
+    }
+
+    /**
+     * Makes {@link #check()} check the stylerules in parallel on the common fork-join pool.
+     * The diagnostics are the same as those of a check on one thread, in the same order.
+     *
+     * @param parallelCheck true to check stylerules in parallel
+     */
+    public void setParallelCheck(boolean parallelCheck) {
+        this.parallelCheck = parallelCheck;
+    }
+
+    /**
+     * Makes the pipeline work incrementally on an input that is edited and compiled again, as in an editor.
+     * {@link #parseString(String)} parses only the statements touched by the difference with the previous input,
+     * {@link #check()} checks only those and the statements that depend on them, and {@link #transform()} is
+     * persistent, so the unchanged statements can be shared with the next version.
+     *
+     * @param incremental true to keep the previous input, false to forget it
+     */
+    public void setIncremental(boolean incremental) {
+        incrementalParser = incremental ? new IncrementalParser() : null;
+        incrementalChecker = incremental ? new IncrementalChecker() : null;
+    }
+
+    /**
+     * @return The AST as it was before the last persistent transform, or null.
+     */
+    public AST getUntransformedAST() {
+        return untransformedAST;
+    }
+
+    /**
+     * Lets {@link #parsePath(Path)} read the AST of unchanged files from a cache instead of parsing them again.
+     *
+     * @param parseCache The cache, or null to always parse.
+     */
+    public void setParseCache(ParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    /**
+     * @return how often (in all pipelines) the SLL parse had to fall back to a full LL parse
+     */
+    public static long getFullContextFallbacks() {
+        return fullContextFallbacks.get();
+    }
+
     public void parseString(String input) {
+        if (incrementalParser != null) {
+            parseEdit(input);
+        } else {
+            parse(CharStreams.fromString(input));
+        }
+    }
+
+    private void parseEdit(String input) {
+        //the edit is what lies between the common start and end of the previous and the new input
+        String previous = incrementalParser.getText();
+        int length = Math.min(previous.length(), input.length());
+        int start = 0;
+        while (start < length && previous.charAt(start) == input.charAt(start)) {
+            start++;
+        }
+        int end = 0;
+        while (end < length - start
+                && previous.charAt(previous.length() - 1 - end) == input.charAt(input.length() - 1 - end)) {
+            end++;
+        }
+
+        parsed = incrementalParser.applyEdit(start, previous.length() - end - start,
+                input.substring(start, input.length() - end));
+        editsSinceCheck++;
+        ast = incrementalParser.getAST();
+        errors.clear();
+        errors.addAll(incrementalParser.getErrors());
+        checked = transformed = false;
+        untransformedAST = null;
+        diagnostics = null;
+    }
+
+    /**
+     * Parses a source file. ASCII files are lexed straight from a memory-mapped buffer,
+     * without decoding them into a String first.
+     *
+     * With a parse cache the AST of a file that was parsed before is read from the cache instead. The file is
+     * read once: the bytes that are hashed for the cache key are the bytes that are parsed.
+     *
+     * @param path The .icss file to parse.
+     */
+    public void parsePath(Path path) throws IOException {
+        if (parseCache == null) {
+            parse(ByteBufferCharStream.fromPath(path));
+            return;
+        }
+
+        ByteBuffer source = ByteBufferCharStream.map(path);
+        String key = ParseCache.key(source);
+        AST cached = parseCache.load(key);
+        if (cached != null) {
+            this.ast = cached;
+            errors.clear();
+            parsed = true;
+            checked = transformed = false;
+            untransformedAST = null;
+            diagnostics = null;
+            return;
+        }
+        parse(ByteBufferCharStream.fromBuffer(source, path.toString()));
+        if (parsed) {
+            parseCache.store(key, ast);
+        }
+    }
+
+    private void parse(CharStream inputStream) {
 
         //Lex (with Antlr's generated lexer)
-        CharStream inputStream = CharStreams.fromString(input);
         ICSSLexer lexer = new ICSSLexer(inputStream);
         lexer.removeErrorListeners();
         lexer.addErrorListener(this);
@@ -61,16 +238,13 @@ public class Pipeline implements ANTLRErrorListener {
             //Parse (with Antlr's generated parser)
             ICSSParser parser = new ICSSParser(tokens);
             parser.removeErrorListeners();
-            parser.addErrorListener(this);
-
-            ParseTree parseTree = parser.stylesheet();
-
-            //Extract AST from the Antlr parse tree
-            ASTListener listener = new ASTListener();
-            ParseTreeWalker walker = new ParseTreeWalker();
-            walker.walk(listener, parseTree);
 
-            this.ast = listener.getAST();
+            if (twoStageParsing) {
+                this.ast = parseTwoStage(parser, tokens);
+            } else {
+                parser.addErrorListener(this);
+                this.ast = parseStylesheet(parser);
+            }
 
         } catch (RecognitionException e) {
             this.ast = new AST();
@@ -79,26 +253,82 @@ public class Pipeline implements ANTLRErrorListener {
         } catch (ParseCancellationException e) {
             this.ast = new AST();
             errors.add("Syntax error");
+
+        } catch (RuntimeException e) {
+            //after a reported syntax error the AST builder can miss nodes, the errors already say why
+            if (errors.isEmpty()) {
+                throw e;
+            }
+            this.ast = new AST();
         }
         parsed = errors.isEmpty();
         checked = transformed = false;
+        untransformedAST = null;
+        diagnostics = null;
+    }
+
+    private AST parseTwoStage(ICSSParser parser, CommonTokenStream tokens) {
+        //Stage 1: SLL without error reporting, any error cancels the parse
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            return parseStylesheet(parser);
+        } catch (ParseCancellationException e) {
+            fullContextFallbacks.incrementAndGet();
+        }
+
+        //Stage 2: rewind and parse with full LL, so syntax errors are reported as usual
+        tokens.seek(0);
+        parser.reset();
+        parser.addErrorListener(this);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        return parseStylesheet(parser);
+    }
+
+    private AST parseStylesheet(ICSSParser parser) {
+        ASTListener listener = new ASTListener();
+
+        if (singlePassParsing) {
+            //Build the AST while parsing, no parse tree is created
+            parser.setBuildParseTree(false);
+            parser.removeParseListeners();
+            parser.addParseListener(listener);
+            parser.stylesheet();
+        } else {
+            //Extract AST from the Antlr parse tree
+            ParseTree parseTree = parser.stylesheet();
+            ParseTreeWalker walker = new ParseTreeWalker();
+            walker.walk(listener, parseTree);
+        }
+        return listener.getAST();
     }
+
     public boolean check() {
             if(ast == null)
                 return false;
 
-           (new Checker()).check(this.ast);
+            if (incrementalChecker != null && editsSinceCheck == 1 && ast == incrementalParser.getAST()) {
+                diagnostics = incrementalChecker.update(this.ast, incrementalParser.getFirstReparsedStatement(),
+                        incrementalParser.getReplacedStatements());
+                editsSinceCheck = 0;
+            } else if (incrementalChecker != null) {
+                //the changed statements are found by comparing the nodes
+                diagnostics = incrementalChecker.check(this.ast);
+                editsSinceCheck = 0;
+            } else if (parallelCheck) {
+                diagnostics = (new Checker()).check(this.ast, ForkJoinPool.commonPool());
+            } else {
+                diagnostics = (new Checker()).check(this.ast);
+            }
 
-            ArrayList<SemanticError> errors = this.ast.getErrors();
-            if (!errors.isEmpty()) {
-                for (SemanticError e : errors) {
-                    this.errors.add(e.toString());
-                }
+            for (Diagnostic diagnostic : diagnostics.getAll()) {
+                this.errors.add(diagnostic.toString());
             }
 
-            checked = errors.isEmpty();
+            checked = !diagnostics.hasErrors();
             transformed = false;
-            return errors.isEmpty();
+            return checked;
     }
 
     public void clearErrors(){
@@ -109,7 +339,12 @@ public class Pipeline implements ANTLRErrorListener {
         if(ast == null)
             return;
 
-        (new Evaluator()).apply(ast);
+        if (persistentTransform || incrementalChecker != null) {
+            untransformedAST = ast;
+            ast = new PersistentEvaluator().evaluate(ast);
+        } else {
+            (new Evaluator()).apply(ast);
+        }
 
 
         transformed = errors.isEmpty();
@@ -0,0 +1,138 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Stylesheet;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.Diagnostic;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.ASTListener;
+import nl.han.ica.icss.parser.ICSSLexer;
+import nl.han.ica.icss.parser.ICSSParser;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles a stylesheet one top-level statement at a time, from a {@link Reader} to a {@link Writer}.
+ * <p>
+ * Unlike {@link Pipeline} the source, parse tree, AST and output are never in memory as a whole:
+ * each stylerule or variable assignment is parsed, checked, evaluated and written before the next one is read.
+ * Only the global variable scope is kept, so peak memory depends on the largest rule instead of the file size.
+ * <p>
+ * Output that was written before an error was found stays written; on errors nothing more is emitted.
+ */
+public class StreamingCompiler extends BaseErrorListener {
+
+    private final List<String> errors = new ArrayList<>();
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Compiles all statements from the reader and writes the generated CSS to the writer.
+     *
+     * @return true if the stylesheet compiled without errors
+     */
+    public boolean compile(Reader reader, Writer writer) throws IOException {
+        errors.clear();
+
+        //Lex without buffering the whole input, tokens copy their text so the chars can be released
+        ICSSLexer lexer = new ICSSLexer(new UnbufferedCharStream(new BufferedReader(reader)));
+        lexer.setTokenFactory(new CommonTokenFactory(true));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(this);
+        TokenStream tokens = new UnbufferedTokenStream<>(lexer);
+
+        //Build the AST of each statement during the parse, no parse tree is kept
+        ICSSParser parser = new ICSSParser(tokens);
+        parser.removeErrorListeners();
+        parser.addErrorListener(this);
+        parser.setBuildParseTree(false);
+        ASTListener listener = new ASTListener();
+        parser.addParseListener(listener);
+        Stylesheet statements = listener.beginStatements();
+
+        Checker checker = new Checker();
+        Evaluator evaluator = new Evaluator();
+        Generator generator = new Generator();
+        checker.beginStylesheet();
+        evaluator.beginStylesheet();
+        int knownDiagnostics = 0;
+
+        //a full parse stops without an error at the first token after a statement that cannot start another one
+        ATN atn = parser.getATN();
+        IntervalSet statementStart = atn.nextTokens(atn.ruleToStartState[ICSSParser.RULE_stylesheet]);
+        boolean statementRead = false;
+
+        try {
+            while (statementStart.contains(tokens.LA(1))) {
+                int knownErrors = errors.size();
+
+                //stylesheet: (stylerule | variableAssignment)+; only variables start with a capital
+                if (tokens.LA(1) == ICSSParser.CAPITAL_IDENT) {
+                    parser.variableAssignment();
+                } else {
+                    parser.stylerule();
+                }
+                if (errors.size() > knownErrors) {
+                    //syntax errors leave the statement (and its successors) incomplete
+                    return false;
+                }
+
+                for (ASTNode statement : statements.body) {
+                    checker.checkStatement(statement);
+                }
+                //only the diagnostics of the new statements
+                List<Diagnostic> diagnostics = checker.getDiagnostics().getAll();
+                for (int i = knownDiagnostics; i < diagnostics.size(); i++) {
+                    errors.add(diagnostics.get(i).toString());
+                }
+                knownDiagnostics = diagnostics.size();
+                if (errors.isEmpty()) {
+                    for (ASTNode statement : statements.body) {
+                        evaluator.applyStatement(statement);
+                        writer.write(generator.generateStatement(statement));
+                    }
+                }
+                statements.body.clear();
+                statementRead = true;
+            }
+            if (!statementRead) {
+                //stylesheet: (stylerule | variableAssignment)+, reported as the full parse reports it
+                Token token = tokens.LT(1);
+                parser.notifyErrorListeners(token, "mismatched input " + errorDisplay(token) + " expecting "
+                        + statementStart.toString(parser.getVocabulary()), null);
+            }
+        } catch (RecognitionException e) {
+            errors.add(e.getMessage());
+        } catch (RuntimeException e) {
+            //a statement that failed to parse can leave the AST builder without nodes, the errors already say why
+            if (errors.isEmpty()) {
+                throw e;
+            }
+        }
+        writer.flush();
+        return errors.isEmpty();
+    }
+
+    private static String errorDisplay(Token token) {
+        String text = token.getType() == Token.EOF ? "<EOF>" : token.getText();
+        return "'" + text.replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t") + "'";
+    }
+
+    //Catch ANTLR errors
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                            int charPositionInLine, String msg, RecognitionException e) {
+        errors.add("Syntax error: " + msg);
+    }
+}
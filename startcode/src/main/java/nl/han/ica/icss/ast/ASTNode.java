@@ -1,13 +1,19 @@
 package nl.han.ica.icss.ast;
 
-import nl.han.ica.icss.checker.SemanticError;
-
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ASTNode {
 
-    private SemanticError error = null;
+    //Changes each time a node with a cached hash changes, hashes cached in an earlier generation may be stale
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    //Structural hash of this subtree, 0 while unknown
+    private int hash;
+    //Generation the hash was computed in
+    private int hashGeneration;
 
     /*
      This method is used in the GUI to create an appropriate label
@@ -17,37 +23,87 @@ public class ASTNode {
         return "ASTNode";
     }
 
+    /*
+     Calls the visit method of the visitor for the type of this node.
+     Node types without their own visit method are passed to visitNode.
+     */
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitNode(this, context);
+    }
+
     /*
      Different AST nodes use different attributes to store their children.
      This method provides a unified interface.
+     The list is a copy for most nodes, passes that visit every node should use
+     getChildCount and getChild instead.
      */
     public ArrayList<ASTNode> getChildren() {
-        return new ArrayList<>();
+        int count = getChildCount();
+        ArrayList<ASTNode> children = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            children.add(getChild(i));
+        }
+        return children;
+    }
+
+    /*
+     Number of children, in the same order as getChildren.
+     Together with getChild this visits the children without allocating.
+     */
+    public int getChildCount() {
+        return 0;
+    }
+
+    /*
+     The child at the given index, 0 <= index < getChildCount().
+     */
+    public ASTNode getChild(int index) {
+        throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length 0");
     }
     /*
     By implementing this method in a subclass you can easily create AST nodes
       incrementally.
+      Implementations call childrenChanged after changing the children.
     */
     public ASTNode addChild(ASTNode child) {
             return this;
     }
     /*
     * By implementing this method you can easily make transformations that prune the AST.
+    * Implementations call childrenChanged after changing the children.
     */
     public ASTNode removeChild(ASTNode child) {
         return this;
     }
 
-    public SemanticError getError() {
-        return this.error;
+    /*
+     Forgets the cached hash of this node and of all nodes above it.
+     Passes that assign child fields or lists directly, instead of using addChild and removeChild,
+     call this on the changed node.
+     */
+    public void childrenChanged() {
+        //a node is not hashed before its children are, so if this node has no hash, no node above it has one.
+        //A subtree can be shared by several trees and a node does not know the nodes above it,
+        //so a new generation makes every hash cached before this change stale
+        if (hash != 0) {
+            hash = 0;
+            GENERATION.incrementAndGet();
+        }
     }
 
-    public void setError(String description) {
-        this.error = new SemanticError(description);
+    /*
+     Hash of the attributes of this node itself, without its children.
+     Nodes with attributes (names, values) override this together with attributesEqual.
+     */
+    protected int attributeHash() {
+        return 0;
     }
 
-    public boolean hasError() {
-        return error != null;
+    /*
+     Compares the attributes of this node with those of a node of the same class, without the children.
+     */
+    protected boolean attributesEqual(ASTNode other) {
+        return true;
     }
 
 	@Override
@@ -60,26 +116,100 @@ public class ASTNode {
 		builder.append("[");
 		builder.append(getNodeLabel());	
 		builder.append("|");
-		for(ASTNode child : getChildren()) {
-			child.toString(builder);
-		}	
+		for(int i = 0; i < getChildCount(); i++) {
+			getChild(i).toString(builder);
+		}
 		builder.append("]");
 	}
 
+	/*
+	 Structural hash of the node type, the attributes and all children.
+	 It is computed bottom-up once and cached until the subtree changes, see childrenChanged.
+	 */
 	@Override
-    public boolean equals(Object o) {
-        if(! (o instanceof ASTNode))
-            return false;
-        //Compare all children
-        List<ASTNode> thisChildren = this.getChildren();
-        List<ASTNode> otherChildren = ((ASTNode) o).getChildren();
-        if(otherChildren.size() != thisChildren.size())
-            return false;
-        for(int i = 0; i < thisChildren.size(); i++ ) {
-            if(!thisChildren.get(i).equals(otherChildren.get(i))) {
-                return false;
-            }
-        }
-        return true;
-    }
+	public int hashCode() {
+		int generation = GENERATION.get();
+		int h = hash;
+		if (h == 0 || hashGeneration != generation) {
+			computeHashes(generation);
+			h = hash;
+		}
+		return h;
+	}
+
+	private void computeHashes(int generation) {
+		//post-order with an explicit stack, a node is hashed once all its children have a hash of this generation
+		Deque<ASTNode> pending = new ArrayDeque<>();
+		pending.push(this);
+		while (!pending.isEmpty()) {
+			ASTNode node = pending.peek();
+			boolean ready = true;
+			for (int i = 0; i < node.getChildCount(); i++) {
+				ASTNode child = node.getChild(i);
+				if (!child.hasHash(generation)) {
+					pending.push(child);
+					ready = false;
+				}
+			}
+			if (ready) {
+				pending.pop();
+				node.hash = node.combineHashes();
+				node.hashGeneration = generation;
+			}
+		}
+	}
+
+	private boolean hasHash(int generation) {
+		return hash != 0 && hashGeneration == generation;
+	}
+
+	private int combineHashes() {
+		int h = 31 * getClass().getName().hashCode() + attributeHash();
+		for (int i = 0; i < getChildCount(); i++) {
+			h = 31 * h + getChild(i).hash;
+		}
+		//0 means unknown
+		return h != 0 ? h : 1;
+	}
+
+	/*
+	 Two nodes are equal when they have the same type, attributes and children.
+	 The cached hashes are compared first, so different trees are usually rejected without walking them.
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof ASTNode) || !sameNode(this, (ASTNode) o))
+			return false;
+		if (getChildCount() == 0)
+			return true;
+
+		//compare the children pairwise with an explicit stack, operation chains can be deeper than the call stack
+		Deque<ASTNode> pending = new ArrayDeque<>();
+		pending.push(this);
+		pending.push((ASTNode) o);
+		while (!pending.isEmpty()) {
+			ASTNode other = pending.pop();
+			ASTNode node = pending.pop();
+			for (int i = 0; i < node.getChildCount(); i++) {
+				ASTNode child = node.getChild(i);
+				ASTNode otherChild = other.getChild(i);
+				if (child == otherChild)
+					continue;
+				if (!sameNode(child, otherChild))
+					return false;
+				pending.push(child);
+				pending.push(otherChild);
+			}
+		}
+		return true;
+	}
+
+	private static boolean sameNode(ASTNode node, ASTNode other) {
+		return node.getClass() == other.getClass()
+				&& node.hashCode() == other.hashCode()
+				&& node.getChildCount() == other.getChildCount()
+				&& node.attributesEqual(other);
+	}
 }
@@ -0,0 +1,140 @@
+package nl.han.ica.icss.ast;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Reads ASTs written by {@link ASTWriter}, straight from a (memory-mapped) buffer.
+ * <p>
+ * Data with another magic or version, or data that is truncated or otherwise damaged, is rejected with an
+ * IOException; callers that cache ASTs treat that as a miss.
+ */
+public class ASTReader {
+
+    private final ByteBuffer buffer;
+    private final ArrayList<String> symbols = new ArrayList<>();
+
+    //Reused for copying symbols out of the buffer, symbols are short
+    private byte[] scratch = new byte[64];
+
+    public ASTReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Reads the AST in a file written by {@link ASTWriter}. The file is memory-mapped, not copied.
+     */
+    public static AST read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB");
+            }
+            return new ASTReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())).read();
+        }
+    }
+
+    public AST read() throws IOException {
+        try {
+            for (byte b : ASTWriter.MAGIC) {
+                if (buffer.get() != b) {
+                    throw new IOException("Not an AST file");
+                }
+            }
+            int version = readVarint();
+            if (version != ASTWriter.VERSION) {
+                throw new IOException("Unsupported AST format version " + version);
+            }
+
+            ASTNode root = readNodes();
+            if (!(root instanceof Stylesheet) || buffer.hasRemaining()) {
+                throw new IOException("Corrupt AST data");
+            }
+            return new AST((Stylesheet) root);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | ClassCastException e) {
+            throw new IOException("Corrupt AST data", e);
+        }
+    }
+
+    private ASTNode readNodes() {
+        //each parent on the stack has a number of children still to be read, they follow it in pre-order
+        Deque<ASTNode> parents = new ArrayDeque<>();
+        int[] remaining = new int[16];
+
+        ASTNode root = null;
+        do {
+            int head = readVarint();
+            NodeKind kind = NodeKind.of(head & (1 << ASTWriter.KIND_BITS) - 1);
+            int count = head >>> ASTWriter.KIND_BITS;
+
+            String symbol = null;
+            int value = 0;
+            if (kind.hasSymbol()) {
+                symbol = readSymbol();
+            } else if (kind.hasValue()) {
+                int zigzag = readVarint();
+                value = zigzag >>> 1 ^ -(zigzag & 1);
+            }
+            ASTNode node = kind.newNode(symbol, value);
+
+            if (parents.isEmpty()) {
+                root = node;
+            } else {
+                parents.peek().addChild(node);
+                remaining[parents.size() - 1]--;
+            }
+            if (count > 0) {
+                if (parents.size() == remaining.length) {
+                    remaining = Arrays.copyOf(remaining, remaining.length * 2);
+                }
+                remaining[parents.size()] = count;
+                parents.push(node);
+            }
+            while (!parents.isEmpty() && remaining[parents.size() - 1] == 0) {
+                parents.pop();
+            }
+        } while (!parents.isEmpty());
+        return root;
+    }
+
+    private String readSymbol() {
+        int id = readVarint();
+        if (id < symbols.size()) {
+            return symbols.get(id);
+        }
+        if (id != symbols.size()) {
+            throw new IndexOutOfBoundsException("Symbol " + id + " out of order");
+        }
+        int length = readVarint();
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(scratch, 0, length);
+        String symbol = Symbols.intern(new String(scratch, 0, length, StandardCharsets.UTF_8));
+        symbols.add(symbol);
+        return symbol;
+    }
+
+    private int readVarint() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IndexOutOfBoundsException("Varint longer than 5 bytes");
+    }
+}
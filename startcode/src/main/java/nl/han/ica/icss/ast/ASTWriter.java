@@ -0,0 +1,113 @@
+package nl.han.ica.icss.ast;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+
+/**
+ * Writes ASTs in a compact binary format, read back by {@link ASTReader}.
+ * <p>
+ * The format starts with the magic bytes "ICSA" and the format version, followed by the nodes in pre-order.
+ * All numbers are varints (7 bits per byte, low bits first). Each node starts with one varint holding its
+ * {@link NodeKind} in the low 5 bits and its number of children above them, so most nodes take a single byte.
+ * Literal values follow as zigzag varints. Symbols are written once: a node refers to a symbol by its id, and an id
+ * that has not been seen yet is followed by the UTF-8 bytes of the new symbol.
+ * <p>
+ * Nodes are written to the stream as the tree is walked, the tree is never held in another form.
+ */
+public class ASTWriter implements Flushable {
+
+    static final byte[] MAGIC = {'I', 'C', 'S', 'A'};
+    //Increase whenever the encoding or the node kinds change, readers reject other versions
+    static final int VERSION = 1;
+    static final int KIND_BITS = 5;
+
+    private final OutputStream out;
+    private final HashMap<String, Integer> symbolIds = new HashMap<>();
+
+    //Bytes are collected here and written to the stream in blocks
+    private final byte[] buffer = new byte[8192];
+    private int position = 0;
+
+    public ASTWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the header and the whole stylesheet. The writer can be used for one AST only.
+     */
+    public void write(AST ast) throws IOException {
+        for (byte b : MAGIC) {
+            writeByte(b);
+        }
+        writeVarint(VERSION);
+        writeNode(ast.root);
+        flush();
+    }
+
+    private void writeNode(ASTNode root) throws IOException {
+        //pre-order with an explicit stack, children are pushed in reverse so they are written in order
+        Deque<ASTNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            ASTNode node = pending.pop();
+            NodeKind kind = NodeKind.of(node);
+            int count = node.getChildCount();
+            writeVarint(count << KIND_BITS | kind.ordinal());
+
+            if (kind.hasSymbol()) {
+                writeSymbol(kind.symbolOf(node));
+            } else if (kind.hasValue()) {
+                int value = kind.valueOf(node);
+                writeVarint(value << 1 ^ value >> 31);
+            }
+
+            for (int i = count - 1; i >= 0; i--) {
+                pending.push(node.getChild(i));
+            }
+        }
+    }
+
+    private void writeSymbol(String symbol) throws IOException {
+        Integer id = symbolIds.get(symbol);
+        if (id != null) {
+            writeVarint(id);
+            return;
+        }
+        id = symbolIds.size();
+        symbolIds.put(symbol, id);
+        byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+        writeVarint(id);
+        writeVarint(bytes.length);
+        for (byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+}
@@ -1,3 +1,43 @@
 package nl.han.ica.icss.ast;
 
-public abstract class Expression extends ASTNode { }
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+public abstract class Expression extends ASTNode {
+
+    //Type found by the Checker, null before checking. Literals are shared between trees and are never annotated.
+    public ExpressionType type;
+
+    /**
+     * Lists this expression and all its subexpressions in post-order, operands before their operation.
+     * Walks the tree with an explicit stack, so long operator chains cannot overflow the call stack.
+     *
+     * @return The subexpressions, ending with this expression.
+     */
+    public List<Expression> postOrder() {
+        //pre-order with the right operand visited first is exactly the reversed post-order
+        List<Expression> result = new ArrayList<>();
+        Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Expression expression = pending.pop();
+            result.add(expression);
+            if (expression instanceof Operation) {
+                Operation operation = (Operation) expression;
+                if (operation.lhs != null) {
+                    pending.push(operation.lhs);
+                }
+                if (operation.rhs != null) {
+                    pending.push(operation.rhs);
+                }
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+}
@@ -0,0 +1,245 @@
+package nl.han.ica.icss.ast;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+
+/**
+ * A compact, array-backed form of the AST for holding very large stylesheets in memory.
+ * <p>
+ * Nodes are indexes into parallel arrays instead of objects: the kind of the node, its first child, its next
+ * sibling and one data value, about 13 bytes per node. The data value is a symbol id for nodes with a name
+ * (variables, properties, selectors and colors) and the value itself for the other literals. Node 0 is the
+ * stylesheet.
+ * <p>
+ * The checker, evaluator and generator work on object nodes, one top-level statement at a time: walk the
+ * statements with {@link #firstChild(int)} and {@link #nextSibling(int)} from the root and convert each one with
+ * {@link #toNode(int)} for {@link nl.han.ica.icss.checker.Checker#checkStatement(ASTNode)} and its counterparts.
+ * Statements can be added the same way with {@link #appendStatement(ASTNode)}, so neither the source nor the
+ * object AST of a whole site has to be in memory at once.
+ */
+public class FlatAST {
+
+    public static final int NONE = -1;
+    public static final int ROOT = 0;
+
+    private byte[] kinds = new byte[16];
+    private int[] firstChildren = new int[16];
+    private int[] nextSiblings = new int[16];
+    private int[] data = new int[16];
+    private int size = 0;
+    //Statements are appended one by one, so the last one is kept instead of walking all siblings each time
+    private int lastStatement = NONE;
+
+    private final ArrayList<String> symbols = new ArrayList<>();
+    private final HashMap<String, Integer> symbolIds = new HashMap<>();
+
+    public FlatAST() {
+        add(NodeKind.STYLESHEET, 0);
+    }
+
+    public static FlatAST fromAST(AST ast) {
+        FlatAST flat = new FlatAST();
+        for (int i = 0; i < ast.root.getChildCount(); i++) {
+            flat.appendStatement(ast.root.getChild(i));
+        }
+        return flat;
+    }
+
+    public AST toAST() {
+        return new AST((Stylesheet) toNode(ROOT));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public NodeKind kind(int node) {
+        return NodeKind.of(kinds[checkNode(node)]);
+    }
+
+    /**
+     * @return The first child of the node, or {@link #NONE}.
+     */
+    public int firstChild(int node) {
+        return firstChildren[checkNode(node)];
+    }
+
+    /**
+     * @return The next child of the parent of the node, or {@link #NONE}.
+     */
+    public int nextSibling(int node) {
+        return nextSiblings[checkNode(node)];
+    }
+
+    /**
+     * @return The name of a variable, property, selector or color.
+     */
+    public String symbol(int node) {
+        return symbols.get(data[checkNode(node)]);
+    }
+
+    /**
+     * @return The value of a pixel, percentage or scalar literal, 1 or 0 for a bool literal.
+     */
+    public int value(int node) {
+        return data[checkNode(node)];
+    }
+
+    /**
+     * Adds a top-level statement (and all nodes below it) to the stylesheet.
+     *
+     * @param statement A stylerule or variable assignment.
+     * @return The index of the statement.
+     */
+    public int appendStatement(ASTNode statement) {
+        return append(statement, ROOT);
+    }
+
+    /**
+     * Adds a node and all nodes below it as the last child of the parent.
+     *
+     * @return The index of the node.
+     */
+    public int append(ASTNode node, int parent) {
+        int start = size;
+        int previous = lastChildOf(parent);
+
+        //pre-order with an explicit stack, children are pushed in reverse so they are appended in order
+        Deque<ASTNode> pendingNodes = new ArrayDeque<>();
+        int[] pendingParents = new int[16];
+        //last child appended so far to each new node, by node - start
+        int[] lastChildren = new int[16];
+        pendingNodes.push(node);
+        pendingParents[0] = parent;
+        while (!pendingNodes.isEmpty()) {
+            ASTNode current = pendingNodes.pop();
+            int currentParent = pendingParents[pendingNodes.size()];
+            NodeKind kind = NodeKind.of(current);
+            int added = add(kind, dataOf(kind, current));
+
+            if (added - start == lastChildren.length) {
+                lastChildren = Arrays.copyOf(lastChildren, lastChildren.length * 2);
+            }
+            lastChildren[added - start] = NONE;
+            if (added == start) {
+                link(parent, previous, added);
+            } else {
+                link(currentParent, lastChildren[currentParent - start], added);
+                lastChildren[currentParent - start] = added;
+            }
+
+            int count = current.getChildCount();
+            if (pendingNodes.size() + count > pendingParents.length) {
+                pendingParents = Arrays.copyOf(pendingParents, Math.max(pendingParents.length * 2, pendingNodes.size() + count));
+            }
+            for (int i = count - 1; i >= 0; i--) {
+                pendingParents[pendingNodes.size()] = added;
+                pendingNodes.push(current.getChild(i));
+            }
+        }
+        if (parent == ROOT) {
+            lastStatement = start;
+        }
+        return start;
+    }
+
+    private int lastChildOf(int parent) {
+        checkNode(parent);
+        if (parent == ROOT) {
+            return lastStatement;
+        }
+        int last = NONE;
+        for (int child = firstChildren[parent]; child != NONE; child = nextSiblings[child]) {
+            last = child;
+        }
+        return last;
+    }
+
+    private void link(int parent, int previous, int node) {
+        if (previous == NONE) {
+            firstChildren[parent] = node;
+        } else {
+            nextSiblings[previous] = node;
+        }
+    }
+
+    private int dataOf(NodeKind kind, ASTNode node) {
+        return kind.hasSymbol() ? symbolId(kind.symbolOf(node)) : kind.valueOf(node);
+    }
+
+    /**
+     * Creates the object form of a node and all nodes below it.
+     */
+    public ASTNode toNode(int node) {
+        ASTNode result = newNode(checkNode(node));
+        //each parent gets all its children at once, in order; the children are filled later from the stack
+        Deque<ASTNode> pendingNodes = new ArrayDeque<>();
+        Deque<Integer> pendingIndexes = new ArrayDeque<>();
+        pendingNodes.push(result);
+        pendingIndexes.push(node);
+        while (!pendingNodes.isEmpty()) {
+            ASTNode parent = pendingNodes.pop();
+            for (int child = firstChildren[pendingIndexes.pop()]; child != NONE; child = nextSiblings[child]) {
+                ASTNode childNode = newNode(child);
+                parent.addChild(childNode);
+                if (firstChildren[child] != NONE) {
+                    pendingNodes.push(childNode);
+                    pendingIndexes.push(child);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Releases the unused capacity of the tables.
+     */
+    public void trimToSize() {
+        resize(size);
+    }
+
+    private ASTNode newNode(int node) {
+        NodeKind kind = NodeKind.of(kinds[node]);
+        int value = data[node];
+        return kind.newNode(kind.hasSymbol() ? symbols.get(value) : null, value);
+    }
+
+    private int add(NodeKind kind, int value) {
+        if (size == kinds.length) {
+            resize(size * 2);
+        }
+        int node = size++;
+        kinds[node] = (byte) kind.ordinal();
+        firstChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        data[node] = value;
+        return node;
+    }
+
+    private int symbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id == null) {
+            id = symbols.size();
+            symbols.add(Symbols.intern(symbol));
+            symbolIds.put(symbols.get(id), id);
+        }
+        return id;
+    }
+
+    private void resize(int capacity) {
+        kinds = Arrays.copyOf(kinds, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        data = Arrays.copyOf(data, capacity);
+    }
+
+    private int checkNode(int node) {
+        if (node < 0 || node >= size) {
+            throw new IndexOutOfBoundsException("Node " + node + " out of bounds for size " + size);
+        }
+        return node;
+    }
+}
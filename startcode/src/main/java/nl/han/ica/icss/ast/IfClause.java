@@ -32,14 +32,26 @@ public class IfClause extends ASTNode {
     }
 
     @Override
-    public ArrayList<ASTNode> getChildren() {
-        ArrayList<ASTNode> children = new ArrayList<>();
-        children.add(conditionalExpression);
-        children.addAll(body);
-        if (elseClause != null)
-            children.add(elseClause);
-
-        return children;
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitIfClause(this, context);
+    }
+
+    @Override
+    public int getChildCount() {
+        return (conditionalExpression != null ? 1 : 0) + body.size() + (elseClause != null ? 1 : 0);
+    }
+
+    @Override
+    public ASTNode getChild(int index) {
+        Objects.checkIndex(index, getChildCount());
+        if (conditionalExpression != null) {
+            if (index == 0)
+                return conditionalExpression;
+            index--;
+        }
+        if (index < body.size())
+            return body.get(index);
+        return elseClause;
     }
 
     @Override
@@ -51,6 +63,7 @@ public class IfClause extends ASTNode {
         else
             body.add(child);
 
+        childrenChanged();
         return this;
     }
 
@@ -64,30 +77,10 @@ public class IfClause extends ASTNode {
         else
             body.remove(child);
 
+        childrenChanged();
         return this;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        IfClause ifClause = (IfClause) o;
-        if (this.elseClause == null)
-            return Objects.equals(conditionalExpression, ifClause.getConditionalExpression()) &&
-                    Objects.equals(body, ifClause.body);
-        else
-            return Objects.equals(conditionalExpression, ifClause.getConditionalExpression()) &&
-                    Objects.equals(body, ifClause.body) &&
-                    Objects.equals(elseClause, ifClause.elseClause);
-
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(conditionalExpression, body, elseClause);
-    }
-
     public Expression getConditionalExpression() {
         return conditionalExpression;
     }
@@ -0,0 +1,260 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.ast.selectors.IdSelector;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+
+/**
+ * The concrete type of an AST node, as stored in a {@link FlatAST} and in the binary format of {@link ASTWriter}.
+ * <p>
+ * Besides its kind a node carries at most one attribute: a symbol (the name of a variable, property or selector,
+ * or a color) or an int value (the value of the other literals, 1 or 0 for a bool literal).
+ * The ordinals are part of the binary format, new kinds are added at the end.
+ */
+public enum NodeKind {
+    STYLESHEET,
+    STYLERULE,
+    DECLARATION,
+    PROPERTY_NAME,
+    VARIABLE_ASSIGNMENT,
+    VARIABLE_REFERENCE,
+    IF_CLAUSE,
+    ELSE_CLAUSE,
+    ADD_OPERATION,
+    SUBTRACT_OPERATION,
+    MULTIPLY_OPERATION,
+    BOOL_LITERAL,
+    COLOR_LITERAL,
+    PERCENTAGE_LITERAL,
+    PIXEL_LITERAL,
+    SCALAR_LITERAL,
+    TAG_SELECTOR,
+    CLASS_SELECTOR,
+    ID_SELECTOR;
+
+    private static final NodeKind[] VALUES = values();
+
+    static NodeKind of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    static NodeKind of(ASTNode node) {
+        return node.accept(KINDS, null);
+    }
+
+    /**
+     * @return true if nodes of this kind carry a symbol, false if they carry an int value (or nothing).
+     */
+    boolean hasSymbol() {
+        switch (this) {
+            case PROPERTY_NAME:
+            case VARIABLE_REFERENCE:
+            case COLOR_LITERAL:
+            case TAG_SELECTOR:
+            case CLASS_SELECTOR:
+            case ID_SELECTOR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true if nodes of this kind carry an int value.
+     */
+    boolean hasValue() {
+        switch (this) {
+            case BOOL_LITERAL:
+            case PERCENTAGE_LITERAL:
+            case PIXEL_LITERAL:
+            case SCALAR_LITERAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    String symbolOf(ASTNode node) {
+        switch (this) {
+            case PROPERTY_NAME:
+                return ((PropertyName) node).name;
+            case VARIABLE_REFERENCE:
+                return ((VariableReference) node).name;
+            case COLOR_LITERAL:
+                return ((ColorLiteral) node).value;
+            case TAG_SELECTOR:
+                return ((TagSelector) node).tag;
+            case CLASS_SELECTOR:
+                return ((ClassSelector) node).cls;
+            case ID_SELECTOR:
+                return ((IdSelector) node).id;
+            default:
+                throw new IllegalStateException(this + " has no symbol");
+        }
+    }
+
+    int valueOf(ASTNode node) {
+        switch (this) {
+            case BOOL_LITERAL:
+                return ((BoolLiteral) node).value ? 1 : 0;
+            case PERCENTAGE_LITERAL:
+                return ((PercentageLiteral) node).value;
+            case PIXEL_LITERAL:
+                return ((PixelLiteral) node).value;
+            case SCALAR_LITERAL:
+                return ((ScalarLiteral) node).value;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Creates a node of this kind without children.
+     *
+     * @param symbol The symbol for kinds with a symbol, otherwise ignored.
+     * @param value  The value for literals, otherwise ignored.
+     */
+    ASTNode newNode(String symbol, int value) {
+        switch (this) {
+            case STYLESHEET:
+                return new Stylesheet();
+            case STYLERULE:
+                return new Stylerule();
+            case DECLARATION:
+                return new Declaration();
+            case PROPERTY_NAME:
+                return new PropertyName(symbol);
+            case VARIABLE_ASSIGNMENT:
+                return new VariableAssignment();
+            case VARIABLE_REFERENCE:
+                return new VariableReference(symbol);
+            case IF_CLAUSE:
+                return new IfClause();
+            case ELSE_CLAUSE:
+                return new ElseClause();
+            case ADD_OPERATION:
+                return new AddOperation();
+            case SUBTRACT_OPERATION:
+                return new SubtractOperation();
+            case MULTIPLY_OPERATION:
+                return new MultiplyOperation();
+            case BOOL_LITERAL:
+                return BoolLiteral.of(value != 0);
+            case COLOR_LITERAL:
+                return ColorLiteral.of(symbol);
+            case PERCENTAGE_LITERAL:
+                return PercentageLiteral.of(value);
+            case PIXEL_LITERAL:
+                return PixelLiteral.of(value);
+            case SCALAR_LITERAL:
+                return ScalarLiteral.of(value);
+            case TAG_SELECTOR:
+                return new TagSelector(symbol);
+            case CLASS_SELECTOR:
+                return new ClassSelector(symbol);
+            default:
+                return new IdSelector(symbol);
+        }
+    }
+
+    private static final ASTVisitor<NodeKind, Void> KINDS = new ASTVisitor<NodeKind, Void>() {
+        @Override
+        public NodeKind visitStylesheet(Stylesheet node, Void context) {
+            return NodeKind.STYLESHEET;
+        }
+
+        @Override
+        public NodeKind visitStylerule(Stylerule node, Void context) {
+            return NodeKind.STYLERULE;
+        }
+
+        @Override
+        public NodeKind visitDeclaration(Declaration node, Void context) {
+            return NodeKind.DECLARATION;
+        }
+
+        @Override
+        public NodeKind visitPropertyName(PropertyName node, Void context) {
+            return NodeKind.PROPERTY_NAME;
+        }
+
+        @Override
+        public NodeKind visitVariableAssignment(VariableAssignment node, Void context) {
+            return NodeKind.VARIABLE_ASSIGNMENT;
+        }
+
+        @Override
+        public NodeKind visitVariableReference(VariableReference node, Void context) {
+            return NodeKind.VARIABLE_REFERENCE;
+        }
+
+        @Override
+        public NodeKind visitIfClause(IfClause node, Void context) {
+            return NodeKind.IF_CLAUSE;
+        }
+
+        @Override
+        public NodeKind visitElseClause(ElseClause node, Void context) {
+            return NodeKind.ELSE_CLAUSE;
+        }
+
+        @Override
+        public NodeKind visitAddOperation(AddOperation node, Void context) {
+            return NodeKind.ADD_OPERATION;
+        }
+
+        @Override
+        public NodeKind visitSubtractOperation(SubtractOperation node, Void context) {
+            return NodeKind.SUBTRACT_OPERATION;
+        }
+
+        @Override
+        public NodeKind visitMultiplyOperation(MultiplyOperation node, Void context) {
+            return NodeKind.MULTIPLY_OPERATION;
+        }
+
+        @Override
+        public NodeKind visitBoolLiteral(BoolLiteral node, Void context) {
+            return NodeKind.BOOL_LITERAL;
+        }
+
+        @Override
+        public NodeKind visitColorLiteral(ColorLiteral node, Void context) {
+            return NodeKind.COLOR_LITERAL;
+        }
+
+        @Override
+        public NodeKind visitPercentageLiteral(PercentageLiteral node, Void context) {
+            return NodeKind.PERCENTAGE_LITERAL;
+        }
+
+        @Override
+        public NodeKind visitPixelLiteral(PixelLiteral node, Void context) {
+            return NodeKind.PIXEL_LITERAL;
+        }
+
+        @Override
+        public NodeKind visitScalarLiteral(ScalarLiteral node, Void context) {
+            return NodeKind.SCALAR_LITERAL;
+        }
+
+        @Override
+        public NodeKind visitTagSelector(TagSelector node, Void context) {
+            return NodeKind.TAG_SELECTOR;
+        }
+
+        @Override
+        public NodeKind visitClassSelector(ClassSelector node, Void context) {
+            return NodeKind.CLASS_SELECTOR;
+        }
+
+        @Override
+        public NodeKind visitIdSelector(IdSelector node, Void context) {
+            return NodeKind.ID_SELECTOR;
+        }
+    };
+}
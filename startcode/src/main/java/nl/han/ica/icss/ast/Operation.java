@@ -1,20 +1,28 @@
 package nl.han.ica.icss.ast;
 
-import java.util.ArrayList;
+import nl.han.ica.icss.transforms.CompiledExpression;
+
+import java.util.Objects;
 
 public abstract class Operation extends Expression {
 
     public Expression lhs;
     public Expression rhs;
+    //Compiled form, kept here by the ExpressionCompiler so each operation is compiled once, it is compiled again
+    //when the structural hash changes. Null before compiling.
+    public CompiledExpression compiled;
+
+    @Override
+    public int getChildCount() {
+        return (lhs != null ? 1 : 0) + (rhs != null ? 1 : 0);
+    }
 
     @Override
-    public ArrayList<ASTNode> getChildren() {
-        ArrayList<ASTNode> children = new ArrayList<>();
-        if(lhs != null)
-            children.add(lhs);
-        if(rhs != null)
-            children.add(rhs);
-        return children;
+    public ASTNode getChild(int index) {
+        Objects.checkIndex(index, getChildCount());
+        if(index == 0 && lhs != null)
+            return lhs;
+        return rhs;
     }
 
     @Override
@@ -24,6 +32,7 @@ public abstract class Operation extends Expression {
         } else if(rhs == null) {
             rhs = (Expression) child;
         }
+        childrenChanged();
         return this;
     }
 }
@@ -1,20 +1,38 @@
 package nl.han.ica.icss.ast;
 
+import java.util.Objects;
+
 public class PropertyName extends ASTNode {
 
     public String name;
 
     public PropertyName() {
         super();
-        name = "undefined";
+        name = Symbols.intern("undefined");
     }
     public PropertyName(String name) {
         super();
-        this.name = name;
+        this.name = Symbols.intern(name);
     }
 
     @Override
     public String getNodeLabel() {
         return "Property: (" + name + ")";
     }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitPropertyName(this, context);
+    }
+
+    @Override
+    protected boolean attributesEqual(ASTNode other) {
+        PropertyName that = (PropertyName) other;
+        return Objects.equals(name, that.name);
+    }
+
+    @Override
+    protected int attributeHash() {
+        return Objects.hashCode(name);
+    }
 }
@@ -24,12 +24,21 @@ public class Stylerule extends ASTNode {
     }
 
     @Override
-    public ArrayList<ASTNode> getChildren() {
-        ArrayList<ASTNode> children = new ArrayList<>();
-        children.addAll(selectors);
-        children.addAll(body);
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitStylerule(this, context);
+    }
+
+    @Override
+    public int getChildCount() {
+        return selectors.size() + body.size();
+    }
 
-        return children;
+    @Override
+    public ASTNode getChild(int index) {
+        Objects.checkIndex(index, getChildCount());
+        if (index < selectors.size())
+            return selectors.get(index);
+        return body.get(index - selectors.size());
     }
 
     @Override
@@ -39,6 +48,7 @@ public class Stylerule extends ASTNode {
         else
             body.add(child);
 
+        childrenChanged();
         return this;
     }
 
@@ -50,21 +60,7 @@ public class Stylerule extends ASTNode {
         else
             body.remove(child);
 
+        childrenChanged();
         return this;
     }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        Stylerule stylerule = (Stylerule) o;
-        return Objects.equals(selectors, stylerule.selectors) &&
-                Objects.equals(body, stylerule.body);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(selectors, body);
-    }
 }
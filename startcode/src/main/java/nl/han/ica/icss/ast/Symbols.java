@@ -0,0 +1,34 @@
+package nl.han.ica.icss.ast;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Symbol table for the names in the AST: variable names, property names and selectors.
+ * <p>
+ * Every name is interned into one canonical String, shared by all nodes (of all compilations) that carry
+ * the same name. Its hash code is computed when it is interned and cached by the String itself, and map
+ * lookups with a canonical name succeed on the reference comparison before comparing characters.
+ * Names are weakly referenced, so names that no AST uses anymore can be garbage collected.
+ */
+public final class Symbols {
+
+    private static final Interner<String> NAMES = Interners.newWeakInterner();
+
+    private Symbols() {
+    }
+
+    /**
+     * @param name A name as it appears in the source.
+     * @return The canonical instance of the name.
+     */
+    public static String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        String symbol = NAMES.intern(name);
+        //String caches its hash, so computing it here means lookups never have to
+        symbol.hashCode();
+        return symbol;
+    }
+}
@@ -5,10 +5,18 @@ import java.util.Objects;
 public class VariableReference extends Expression {
 
 	public String name;
+	//The declaration this reference is bound to, set by the Resolver: the level of its scope (0 is the stylesheet)
+	//and its slot in that scope. -1 while unresolved.
+	public int scopeLevel = -1;
+	public int slot = -1;
 	
 	public VariableReference(String name) {
 		super();
-		this.name = name;
+		this.name = Symbols.intern(name);
+	}
+
+	public boolean isResolved() {
+		return scopeLevel >= 0;
 	}
 
 	@Override
@@ -17,17 +25,18 @@ public class VariableReference extends Expression {
 	}
 
 	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (o == null || getClass() != o.getClass()) return false;
-		if (!super.equals(o)) return false;
-		VariableReference that = (VariableReference) o;
-		return Objects.equals(name, that.name);
+	public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+		return visitor.visitVariableReference(this, context);
 	}
 
 	@Override
-	public int hashCode() {
+	protected boolean attributesEqual(ASTNode other) {
+		VariableReference that = (VariableReference) other;
+		return Objects.equals(name, that.name);
+	}
 
-		return Objects.hash(name);
+	@Override
+	protected int attributeHash() {
+		return Objects.hashCode(name);
 	}
 }
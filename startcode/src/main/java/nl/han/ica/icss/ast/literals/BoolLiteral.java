@@ -1,10 +1,14 @@
 package nl.han.ica.icss.ast.literals;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Literal;
-import java.util.Objects;
 
 public class BoolLiteral extends Literal {
-    public boolean value;
+    public static final BoolLiteral TRUE = new BoolLiteral(true);
+    public static final BoolLiteral FALSE = new BoolLiteral(false);
+
+    public final boolean value;
 
     public BoolLiteral(boolean value) {
         this.value = value;
@@ -12,6 +16,20 @@ public class BoolLiteral extends Literal {
     public BoolLiteral(String text) {
         this.value = text.equals("TRUE");
     }
+
+    /**
+     * @return {@link #TRUE} or {@link #FALSE}.
+     */
+    public static BoolLiteral of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * @param text The source text of the literal, "TRUE" or "FALSE".
+     */
+    public static BoolLiteral of(String text) {
+        return of(text.equals("TRUE"));
+    }
     @Override
     public String getNodeLabel() {
         String textValue = value ? "TRUE" : "FALSE";
@@ -19,16 +37,18 @@ public class BoolLiteral extends Literal {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        BoolLiteral that = (BoolLiteral) o;
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitBoolLiteral(this, context);
+    }
+
+    @Override
+    protected boolean attributesEqual(ASTNode other) {
+        BoolLiteral that = (BoolLiteral) other;
         return value == that.value;
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    protected int attributeHash() {
+        return Boolean.hashCode(value);
     }
 }
@@ -1,31 +1,48 @@
 package nl.han.ica.icss.ast.literals;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Literal;
 
 import java.util.Objects;
 
 public class ColorLiteral extends Literal {
-    public String value;
+    private static final Interner<ColorLiteral> CACHE = Interners.newWeakInterner();
+
+    public final String value;
 
     public ColorLiteral(String value) {
         this.value = value;
     }
+
+    /**
+     * @param value The color as it appears in the source, e.g. "#ff0000".
+     * @return The canonical literal for the color, shared by all nodes with that color.
+     */
+    public static ColorLiteral of(String value) {
+        return CACHE.intern(new ColorLiteral(value));
+    }
     @Override
     public String getNodeLabel() {
         return "Color literal (" + value + ")";
     }
 
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitColorLiteral(this, context);
+    }
+
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        ColorLiteral that = (ColorLiteral) o;
+    protected boolean attributesEqual(ASTNode other) {
+        ColorLiteral that = (ColorLiteral) other;
         return Objects.equals(value, that.value);
     }
-    @Override
-    public int hashCode() {
 
-        return Objects.hash(value);
+    @Override
+    protected int attributeHash() {
+        return Objects.hashCode(value);
     }
 }
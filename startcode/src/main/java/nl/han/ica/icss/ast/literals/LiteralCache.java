@@ -0,0 +1,35 @@
+package nl.han.ica.icss.ast.literals;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import nl.han.ica.icss.ast.Literal;
+
+import java.util.function.IntFunction;
+
+/**
+ * Canonical instances of the literals of one numeric type. Values from 0 up to {@link #SMALL_VALUES} are created
+ * up front and looked up by index, other values are interned and weakly referenced.
+ */
+final class LiteralCache<T extends Literal> {
+
+    static final int SMALL_VALUES = 1024;
+
+    private final Object[] small = new Object[SMALL_VALUES + 1];
+    private final Interner<T> others = Interners.newWeakInterner();
+    private final IntFunction<T> factory;
+
+    LiteralCache(IntFunction<T> factory) {
+        this.factory = factory;
+        for (int value = 0; value <= SMALL_VALUES; value++) {
+            small[value] = factory.apply(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int value) {
+        if (value >= 0 && value <= SMALL_VALUES) {
+            return (T) small[value];
+        }
+        return others.intern(factory.apply(value));
+    }
+}
@@ -0,0 +1,15 @@
+package nl.han.ica.icss.ast.literals;
+
+import nl.han.ica.icss.ast.Literal;
+
+/**
+ * A literal whose value is a whole number: a pixel, percentage or scalar literal.
+ */
+public abstract class NumberLiteral extends Literal {
+
+    public final int value;
+
+    protected NumberLiteral(int value) {
+        this.value = value;
+    }
+}
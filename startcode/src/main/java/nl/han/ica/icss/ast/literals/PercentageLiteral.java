@@ -1,17 +1,31 @@
 package nl.han.ica.icss.ast.literals;
 
-import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 
-import java.util.Objects;
-
-public class PercentageLiteral extends Literal {
-    public int value;
+public class PercentageLiteral extends NumberLiteral {
+    private static final LiteralCache<PercentageLiteral> CACHE = new LiteralCache<>(PercentageLiteral::new);
 
     public PercentageLiteral(int value) {
-        this.value = value;
+        super(value);
     }
     public PercentageLiteral(String text) {
-        this.value = Integer.parseInt(text.substring(0, text.length() - 1));
+        super(Integer.parseInt(text.substring(0, text.length() - 1)));
+    }
+
+    /**
+     * @return The canonical literal for the value, shared by all nodes with that value.
+     */
+    public static PercentageLiteral of(int value) {
+        return CACHE.get(value);
+    }
+
+    /**
+     * @param text The source text of the literal, e.g. "50%".
+     * @return The canonical literal for the value of the text.
+     */
+    public static PercentageLiteral of(String text) {
+        return CACHE.get(Integer.parseInt(text.substring(0, text.length() - 1)));
     }
     @Override
     public String getNodeLabel() {
@@ -19,16 +33,18 @@ public class PercentageLiteral extends Literal {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        PercentageLiteral that = (PercentageLiteral) o;
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitPercentageLiteral(this, context);
+    }
+
+    @Override
+    protected boolean attributesEqual(ASTNode other) {
+        PercentageLiteral that = (PercentageLiteral) other;
         return value == that.value;
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    protected int attributeHash() {
+        return value;
     }
 }
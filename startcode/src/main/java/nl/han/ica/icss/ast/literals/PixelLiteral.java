@@ -1,17 +1,31 @@
 package nl.han.ica.icss.ast.literals;
 
-import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 
-import java.util.Objects;
-
-public class PixelLiteral extends Literal {
-    public int value;
+public class PixelLiteral extends NumberLiteral {
+    private static final LiteralCache<PixelLiteral> CACHE = new LiteralCache<>(PixelLiteral::new);
 
     public PixelLiteral(int value) {
-        this.value = value;
+        super(value);
     }
     public PixelLiteral(String text) {
-        this.value = Integer.parseInt(text.substring(0, text.length() - 2));
+        super(Integer.parseInt(text.substring(0, text.length() - 2)));
+    }
+
+    /**
+     * @return The canonical literal for the value, shared by all nodes with that value.
+     */
+    public static PixelLiteral of(int value) {
+        return CACHE.get(value);
+    }
+
+    /**
+     * @param text The source text of the literal, e.g. "10px".
+     * @return The canonical literal for the value of the text.
+     */
+    public static PixelLiteral of(String text) {
+        return CACHE.get(Integer.parseInt(text.substring(0, text.length() - 2)));
     }
     @Override
     public String getNodeLabel() {
@@ -19,16 +33,18 @@ public class PixelLiteral extends Literal {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        PixelLiteral that = (PixelLiteral) o;
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitPixelLiteral(this, context);
+    }
+
+    @Override
+    protected boolean attributesEqual(ASTNode other) {
+        PixelLiteral that = (PixelLiteral) other;
         return value == that.value;
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    protected int attributeHash() {
+        return value;
     }
 }
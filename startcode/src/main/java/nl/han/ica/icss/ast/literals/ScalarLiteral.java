@@ -1,17 +1,31 @@
 package nl.han.ica.icss.ast.literals;
 
-import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 
-import java.util.Objects;
-
-public class ScalarLiteral extends Literal {
-    public int value;
+public class ScalarLiteral extends NumberLiteral {
+    private static final LiteralCache<ScalarLiteral> CACHE = new LiteralCache<>(ScalarLiteral::new);
 
     public ScalarLiteral(int value) {
-        this.value = value;
+        super(value);
     }
     public ScalarLiteral(String text) {
-        this.value = Integer.parseInt(text);
+        super(Integer.parseInt(text));
+    }
+
+    /**
+     * @return The canonical literal for the value, shared by all nodes with that value.
+     */
+    public static ScalarLiteral of(int value) {
+        return CACHE.get(value);
+    }
+
+    /**
+     * @param text The source text of the literal, e.g. "3".
+     * @return The canonical literal for the value of the text.
+     */
+    public static ScalarLiteral of(String text) {
+        return CACHE.get(Integer.parseInt(text));
     }
     @Override
     public String getNodeLabel() {
@@ -19,16 +33,18 @@ public class ScalarLiteral extends Literal {
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        ScalarLiteral that = (ScalarLiteral) o;
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitScalarLiteral(this, context);
+    }
+
+    @Override
+    protected boolean attributesEqual(ASTNode other) {
+        ScalarLiteral that = (ScalarLiteral) other;
         return value == that.value;
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(value);
+    protected int attributeHash() {
+        return value;
     }
 }
@@ -1,6 +1,9 @@
 package nl.han.ica.icss.ast.selectors;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Selector;
+import nl.han.ica.icss.ast.Symbols;
 
 import java.util.Objects;
 
@@ -8,7 +11,7 @@ public class ClassSelector extends Selector {
     public String cls;
 
     public ClassSelector(String cls) {
-        this.cls = cls;
+        this.cls = Symbols.intern(cls);
     }
 
     @Override
@@ -16,20 +19,23 @@ public class ClassSelector extends Selector {
         return "ClassSelector " + cls;
     }
 
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitClassSelector(this, context);
+    }
+
     public String toString() {
         return cls;
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        ClassSelector that = (ClassSelector) o;
+    protected boolean attributesEqual(ASTNode other) {
+        ClassSelector that = (ClassSelector) other;
         return Objects.equals(cls, that.cls);
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(cls);
+    protected int attributeHash() {
+        return Objects.hashCode(cls);
     }
 }
@@ -1,6 +1,9 @@
 package nl.han.ica.icss.ast.selectors;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Selector;
+import nl.han.ica.icss.ast.Symbols;
 
 import java.util.Objects;
 
@@ -8,27 +11,29 @@ public class IdSelector extends Selector {
     public String id;
 
     public IdSelector(String id) {
-        this.id = id;
+        this.id = Symbols.intern(id);
     }
 
     public String getNodeLabel() {
         return "IdSelector " + id;
     }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitIdSelector(this, context);
+    }
     public String toString() {
         return id;
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        IdSelector that = (IdSelector) o;
+    protected boolean attributesEqual(ASTNode other) {
+        IdSelector that = (IdSelector) other;
         return Objects.equals(id, that.id);
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(id);
+    protected int attributeHash() {
+        return Objects.hashCode(id);
     }
 }
@@ -1,6 +1,9 @@
 package nl.han.ica.icss.ast.selectors;
 
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Selector;
+import nl.han.ica.icss.ast.Symbols;
 
 import java.util.Objects;
 
@@ -8,28 +11,29 @@ public class TagSelector extends Selector {
     public String tag;
 
     public TagSelector(String tag) {
-        this.tag = tag;
+        this.tag = Symbols.intern(tag);
     }
 
     public String getNodeLabel() {
         return "TagSelector " + tag;
     }
+
+    @Override
+    public <R, C> R accept(ASTVisitor<R, C> visitor, C context) {
+        return visitor.visitTagSelector(this, context);
+    }
     public String toString() {
         return tag;
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        if (!super.equals(o)) return false;
-        TagSelector that = (TagSelector) o;
+    protected boolean attributesEqual(ASTNode other) {
+        TagSelector that = (TagSelector) other;
         return Objects.equals(tag, that.tag);
     }
 
     @Override
-    public int hashCode() {
-
-        return Objects.hash(tag);
+    protected int attributeHash() {
+        return Objects.hashCode(tag);
     }
 }
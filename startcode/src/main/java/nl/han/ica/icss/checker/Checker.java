@@ -1,53 +1,255 @@
 package nl.han.ica.icss.checker;
 
+import nl.han.ica.datastructures.HANStack;
+import nl.han.ica.datastructures.IHANStack;
+import nl.han.ica.datastructures.ScopeFrames;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.BoolLiteral;
 import nl.han.ica.icss.ast.operations.MultiplyOperation;
 import nl.han.ica.icss.ast.types.ExpressionType;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
-
-
-public class Checker {
-    private static final String[] PROPERTIES = new String[]{"width", "height", "color", "background-color"};
-
-    // teacher said we could use a normal linked list for this, so I changed it
-    private LinkedList<HashMap<String, ExpressionType>> variableTypes;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks the AST for semantic errors, each node is visited through {@link ASTVisitor}.
+ * <p>
+ * Expressions are checked in post-order with a stack of operand types as context: literals and variable references
+ * push their type, operations pop the types of their operands and push their own. At statement level the context
+ * is null. The type of every expression node is computed once this way and stored in {@link Expression#type}, see
+ * {@link #typeOf(Expression)}.
+ * <p>
+ * Variable references are bound to their declarations by a {@link Resolver} first, which also reports undeclared
+ * and duplicate variables. The types of variables are then kept in {@link ScopeFrames} and found by the binding of
+ * each reference.
+ * <p>
+ * Problems are reported to a {@link Diagnostics} per check, apart from those bindings the nodes are not changed.
+ */
+public class Checker implements ASTVisitor<Void, IHANStack<ExpressionType>> {
+    //Smallest number of stylerules checked together by one thread in a parallel check
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private ScopeFrames<ExpressionType> variableTypes;
+    private final Resolver resolver = new Resolver();
     private final ExpressionTypeHelper expressionTypeHelper = new ExpressionTypeHelper();
     private final IfCheckHelper ifCheckHelper = new IfCheckHelper();
+    private Diagnostics diagnostics;
+    private final PropertySchema properties;
+
+    public Checker() {
+        this(PropertySchema.getDefault());
+    }
+
+    /**
+     * @param properties The properties to accept, with the types of their values.
+     */
+    public Checker(PropertySchema properties) {
+        this.properties = properties;
+    }
 
-    public void check(AST ast) {
-        // clean up the variableTypes list
-        variableTypes = new LinkedList<>();
+    /**
+     * @return The problems found in the AST, empty if there are none.
+     */
+    public Diagnostics check(AST ast) {
+        variableTypes = new ScopeFrames<>();
+        diagnostics = new Diagnostics();
+        resolver.resolve(ast, diagnostics);
 
         //start checking from the root node
         checkNode(ast.root);
+        return diagnostics;
+    }
+
+    /**
+     * Starts checking a stylesheet one top-level statement at a time, see {@link #checkStatement(ASTNode)}.
+     * Only the global scope is kept between statements.
+     */
+    public void beginStylesheet() {
+        variableTypes = new ScopeFrames<>();
+        variableTypes.push();
+        diagnostics = new Diagnostics();
+        resolver.beginStylesheet(diagnostics);
+    }
+
+    /**
+     * Checks a single top-level statement (stylerule or variable assignment) against the global scope.
+     *
+     * @param statement The statement to check.
+     */
+    public void checkStatement(ASTNode statement) {
+        resolver.resolveStatement(statement);
+        checkNode(statement);
+    }
+
+    /**
+     * Starts checking a stylesheet one statement at a time like {@link #beginStylesheet()}, with global variables
+     * in the slots of their names in the given table, see {@link IncrementalChecker}.
+     */
+    void beginStylesheet(HashMap<String, Integer> globalSlots) {
+        beginStylesheet();
+        resolver.setGlobalSlots(globalSlots);
+    }
+
+    /**
+     * Checks a single top-level statement with its own diagnostics.
+     *
+     * @param resolved    Receives the problems found by the resolver.
+     * @param checked     Receives the other problems.
+     * @param globalsUsed Receives the names of the global variables the statement uses or declares.
+     */
+    void checkStatement(ASTNode statement, Diagnostics resolved, Diagnostics checked, Set<String> globalsUsed) {
+        resolver.setDiagnostics(resolved);
+        resolver.collectGlobals(globalsUsed);
+        diagnostics = checked;
+        checkStatement(statement);
+        resolver.collectGlobals(null);
+    }
+
+    /**
+     * Declares a global variable that was checked before, without checking its assignment again.
+     */
+    void declareGlobal(VariableAssignment node, ExpressionType type) {
+        resolver.declareGlobal(node.name.name, node.name.slot);
+        variableTypes.set(0, node.name.slot, type);
+    }
+
+    /**
+     * Checks the AST like {@link #check(AST)}, with the stylerules checked in parallel.
+     * <p>
+     * The top-level statements are walked in order first. Global variable assignments are checked right away on
+     * this thread. Runs of stylerules between them are cut into segments, each with a copy of the global scope as
+     * it is at that point. The segments are then checked on the pool, each by its own Checker with its own
+     * scopes and diagnostics. Those are merged in source order afterwards, so the diagnostics are the same as
+     * those of {@link #check(AST)}, in the same order.
+     *
+     * @param pool The pool to check the stylerules on.
+     * @return The problems found in the AST, empty if there are none.
+     */
+    public Diagnostics check(AST ast, ForkJoinPool pool) {
+        beginStylesheet();
+
+        int rules = 0;
+        for (ASTNode statement : ast.root.body) {
+            if (statement instanceof Stylerule) {
+                rules++;
+            }
+        }
+        int segmentSize = Math.max(MIN_SEGMENT_SIZE, rules / (4 * pool.getParallelism()));
+
+        ArrayList<Segment> segments = new ArrayList<>();
+        ArrayList<Segment> ruleSegments = new ArrayList<>();
+        Segment segment = null;
+        //Global scope as the stylerules see it, copied again after each variable assignment
+        HashMap<String, Integer> globalNames = null;
+        ScopeFrames<ExpressionType> globalTypes = null;
+        for (ASTNode statement : ast.root.body) {
+            if (statement instanceof Stylerule) {
+                if (globalTypes == null) {
+                    globalNames = resolver.copyGlobalScope();
+                    globalTypes = variableTypes.copy();
+                }
+                if (segment == null || segment.globalTypes != globalTypes || segment.statements.size() == segmentSize) {
+                    segment = new Segment(globalNames, globalTypes);
+                    segments.add(segment);
+                    ruleSegments.add(segment);
+                }
+                segment.statements.add(statement);
+            } else {
+                if (segment == null || segment.globalTypes != null) {
+                    segment = new Segment(null, null);
+                    segments.add(segment);
+                }
+                resolver.setDiagnostics(segment.resolved);
+                diagnostics = segment.checked;
+                checkStatement(statement);
+                globalNames = null;
+                globalTypes = null;
+            }
+        }
+
+        pool.submit(() -> ruleSegments.parallelStream().forEach(this::checkSegment)).join();
+
+        //problems found by the resolver come first, like in a check on one thread
+        diagnostics = new Diagnostics();
+        for (Segment each : segments) {
+            each.resolved.getAll().forEach(diagnostics::report);
+        }
+        for (Segment each : segments) {
+            each.checked.getAll().forEach(diagnostics::report);
+        }
+        return diagnostics;
+    }
+
+    private void checkSegment(Segment segment) {
+        Checker checker = new Checker(properties);
+        checker.variableTypes = new ScopeFrames<>(segment.globalTypes);
+        checker.diagnostics = segment.checked;
+        checker.resolver.beginStylesheet(segment.globalNames, segment.resolved);
+        for (ASTNode statement : segment.statements) {
+            checker.checkStatement(statement);
+        }
+    }
+
+    //Consecutive top-level statements that are checked together, with their own diagnostics
+    private static final class Segment {
+        final ArrayList<ASTNode> statements = new ArrayList<>();
+        final Diagnostics resolved = new Diagnostics();
+        final Diagnostics checked = new Diagnostics();
+        //The global scope the stylerules of the segment see, null for variable assignments
+        final HashMap<String, Integer> globalNames;
+        final ScopeFrames<ExpressionType> globalTypes;
+
+        Segment(HashMap<String, Integer> globalNames, ScopeFrames<ExpressionType> globalTypes) {
+            this.globalNames = globalNames;
+            this.globalTypes = globalTypes;
+        }
+    }
+
+    /**
+     * @return The problems found by the last check, or since {@link #beginStylesheet()}.
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return The type a check found for the expression, or null if it has none (an undeclared variable)
+     * or was not checked.
+     */
+    public ExpressionType typeOf(Expression expression) {
+        if (expression instanceof Literal) {
+            return expression.accept(expressionTypeHelper, null);
+        }
+        return expression.type;
     }
 
     private void checkNode(ASTNode node) {
-        if (node instanceof Stylesheet) {
-            checkStylesheet((Stylesheet) node);
-        } else if (node instanceof Stylerule) {
-            checkStylerule((Stylerule) node);
-        } else if (node instanceof VariableAssignment) {
-            checkVariableAssignment((VariableAssignment) node);
-        } else if (node instanceof VariableReference) {
-            checkVariableReference((VariableReference) node);
-        } else if (node instanceof Declaration) {
-            checkDeclaration((Declaration) node);
-        } else if (node instanceof PropertyName) {
-            checkPropertyName((PropertyName) node);
-        } else if (node instanceof Operation) {
-            checkOperation((Operation) node);
-        } else if (node instanceof IfClause) {
-            checkIfClause((IfClause) node);
-        } else if (node instanceof ElseClause) {
-            checkElseClause((ElseClause) node);
-        } else if (node instanceof Selector) {
-            checkSelectorNode((Selector) node);
+        node.accept(this, null);
+    }
+
+    /**
+     * Checks an expression tree in one pass, operands before their operation.
+     *
+     * @return The type of the expression.
+     */
+    private ExpressionType checkExpression(Expression expression) {
+        IHANStack<ExpressionType> types = new HANStack<>();
+        if (expression instanceof Operation) {
+            for (Expression current : expression.postOrder()) {
+                current.accept(this, types);
+            }
+        } else {
+            expression.accept(this, types);
         }
+        return types.pop();
+    }
+
+    private void pushType(Expression node, ExpressionType type, IHANStack<ExpressionType> operandTypes) {
+        node.type = type;
+        operandTypes.push(type);
     }
 
     /**
@@ -56,120 +258,160 @@ public class Checker {
      * @param node The node to check the children of.
      */
     private void checkChildNodes(ASTNode node) {
-        for (ASTNode child : node.getChildren()) {
-            checkNode(child);
+        for (int i = 0; i < node.getChildCount(); i++) {
+            checkNode(node.getChild(i));
         }
     }
 
-    private void checkStylesheet(Stylesheet node) {
+    @Override
+    public Void visitStylesheet(Stylesheet node, IHANStack<ExpressionType> operandTypes) {
         //add scope
-        variableTypes.add(new HashMap<>());
+        variableTypes.push();
 
         checkChildNodes(node);
 
         //remove scope
-        variableTypes.removeLast();
+        variableTypes.pop();
+        return null;
     }
 
-    private void checkStylerule(Stylerule node) {
+    @Override
+    public Void visitStylerule(Stylerule node, IHANStack<ExpressionType> operandTypes) {
         //add scope
-        variableTypes.add(new HashMap<>());
+        variableTypes.push();
 
         checkChildNodes(node);
 
         //remove scope
-        variableTypes.removeLast();
+        variableTypes.pop();
+        return null;
     }
 
     //--------------Variables--------------
-    private void checkVariableAssignment(VariableAssignment node) {
-        //check if variable is already declared in scope
-        if (variableTypes.getLast().containsKey(node.name.name)) {
-            node.setError("Variable " + node.name.name + " already declared within scope");
-        }
-
-        //otherwise add the variable to the current scope
-        variableTypes.getLast().put(node.name.name, expressionTypeHelper.getVariableType(node.expression, variableTypes));
-        checkChildNodes(node);
+    @Override
+    public Void visitVariableAssignment(VariableAssignment node, IHANStack<ExpressionType> operandTypes) {
+        //store the type in the slot the resolver gave the variable
+        variableTypes.set(node.name.scopeLevel, node.name.slot, checkExpression(node.expression));
+        return null;
     }
 
-    private void checkVariableReference(VariableReference node) {
-        if (variableTypes.stream().noneMatch(scope -> scope.containsKey(node.name))) {
-            node.setError("Variable " + node.name + " not declared");
-        }
+    @Override
+    public Void visitVariableReference(VariableReference node, IHANStack<ExpressionType> operandTypes) {
+        //undeclared variables were reported by the resolver
+        pushType(node, expressionTypeHelper.findVariableTypeOfReference(node, variableTypes), operandTypes);
+        return null;
     }
 
     //--------------Declarations--------------
-    private void checkDeclaration(Declaration node) {
-        checkChildNodes(node);
+    @Override
+    public Void visitDeclaration(Declaration node, IHANStack<ExpressionType> operandTypes) {
+        checkNode(node.property);
+        int reported = diagnostics.size();
+        ExpressionType type = checkExpression(node.expression);
+
+        //unknown properties, values of unknown type and values with errors in them are already reported
+        PropertySchema.Property property = properties.get(node.property.name);
+        if (property != null && type != null && diagnostics.size() == reported && !property.accepts(type)) {
+            diagnostics.error(node, "property-type", "Property " + property.name + " does not accept a "
+                    + type.name().toLowerCase(Locale.ROOT) + " value");
+        }
+        return null;
     }
 
-    private void checkPropertyName(PropertyName node) {
-        if (Arrays.stream(PROPERTIES).noneMatch(property -> property.equals(node.name))) {
-            node.setError("Unknown property " + node.name);
+    @Override
+    public Void visitPropertyName(PropertyName node, IHANStack<ExpressionType> operandTypes) {
+        if (properties.get(node.name) == null) {
+            diagnostics.error(node, "unknown-property", "Unknown property " + node.name);
         }
+        return null;
     }
 
     //--------------Selectors--------------
-    private void checkSelectorNode(Selector node) {
+    @Override
+    public Void visitSelector(Selector node, IHANStack<ExpressionType> operandTypes) {
         //skip all selectors
+        return null;
     }
 
     //--------------Expressions--------------
-    private void checkOperation(Operation node) {
-        checkChildNodes(node);
+    @Override
+    public Void visitLiteral(Literal node, IHANStack<ExpressionType> operandTypes) {
+        //the type of a literal follows from its class, it is not stored
+        operandTypes.push(node.accept(expressionTypeHelper, operandTypes));
+        return null;
+    }
 
-        ExpressionType leftType = expressionTypeHelper.getVariableType(node.lhs, variableTypes);
-        ExpressionType rightType = expressionTypeHelper.getVariableType(node.rhs, variableTypes);
+    @Override
+    public Void visitOperation(Operation node, IHANStack<ExpressionType> operandTypes) {
+        ExpressionType rightType = operandTypes.pop();
+        ExpressionType leftType = operandTypes.pop();
+        checkOperationTypes(node, leftType, rightType);
+        pushType(node, expressionTypeHelper.getOperationType(node, leftType, rightType), operandTypes);
+        return null;
+    }
 
+    private void checkOperationTypes(Operation node, ExpressionType leftType, ExpressionType rightType) {
         //check if no colors are used in operations
         if (leftType == ExpressionType.COLOR || rightType == ExpressionType.COLOR) {
-            node.setError("Operations with colors are not allowed");
+            diagnostics.error(node, "color-operand", "Operations with colors are not allowed");
             return;
         }
 
         //check if no booleans are used in operations
         if (leftType == ExpressionType.BOOL || rightType == ExpressionType.BOOL) {
-            node.setError("Operations with booleans are not allowed");
+            diagnostics.error(node, "bool-operand", "Operations with booleans are not allowed");
             return;
         }
 
         //check if types are the same
         if (!(node instanceof MultiplyOperation)) {
             if (leftType != rightType) {
-                node.setError("Operation between different types");
+                diagnostics.error(node, "operand-types", "Operation between different types");
             }
             //check if multiply operations contain at least one scalar
         } else if (leftType != ExpressionType.SCALAR && rightType != ExpressionType.SCALAR) {
-            node.setError("Multiply operations should contain at least one scalar");
+            diagnostics.error(node, "multiply-without-scalar", "Multiply operations should contain at least one scalar");
         }
     }
 
     //--------------IF support--------------
-    private void checkIfClause(IfClause node) {
-        //add scope
-        variableTypes.add(new HashMap<>());
-
+    @Override
+    public Void visitIfClause(IfClause node, IHANStack<ExpressionType> operandTypes) {
+        ExpressionType conditionType = checkExpression(node.conditionalExpression);
         if (!(node.conditionalExpression instanceof BoolLiteral)) {
             if (node.conditionalExpression instanceof VariableReference) {
-                ifCheckHelper.checkVariableReferenceInScopes(node, variableTypes);
+                ifCheckHelper.checkVariableCondition(node, conditionType, diagnostics);
             } else {
-                node.setError("Conditional expression is not a boolean");
+                diagnostics.error(node, "condition-not-boolean", "Conditional expression is not a boolean");
             }
         }
-        checkChildNodes(node);
+
+        //add scope
+        variableTypes.push();
+
+        for (ASTNode child : node.body) {
+            checkNode(child);
+        }
 
         //remove scope
-        variableTypes.removeLast();
+        variableTypes.pop();
+
+        //the else body has a scope of its own next to the if body
+        if (node.elseClause != null) {
+            checkNode(node.elseClause);
+        }
+        return null;
     }
 
-    private void checkElseClause(ElseClause node) {
+    @Override
+    public Void visitElseClause(ElseClause node, IHANStack<ExpressionType> operandTypes) {
         //add scope
-        variableTypes.add(new HashMap<>());
+        variableTypes.push();
 
         checkChildNodes(node);
 
         //remove scope
-        variableTypes.removeLast();
+        variableTypes.pop();
+        return null;
     }
 }
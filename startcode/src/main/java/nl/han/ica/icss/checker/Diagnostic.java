@@ -0,0 +1,31 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.ASTNode;
+
+/**
+ * A problem found in the AST, reported to {@link Diagnostics}.
+ */
+public class Diagnostic {
+
+    public enum Severity {
+        ERROR,
+        WARNING
+    }
+
+    public final ASTNode node;
+    public final Severity severity;
+    //Short, stable identifier of the kind of problem, e.g. "undeclared-variable"
+    public final String code;
+    public final String message;
+
+    public Diagnostic(ASTNode node, Severity severity, String code, String message) {
+        this.node = node;
+        this.severity = severity;
+        this.code = code;
+        this.message = message;
+    }
+
+    public String toString() {
+        return severity + ": " + message;
+    }
+}
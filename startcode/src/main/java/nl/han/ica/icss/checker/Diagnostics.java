@@ -0,0 +1,72 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.ASTNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The diagnostics of one compilation, kept beside the AST instead of in its nodes.
+ * <p>
+ * Only nodes with a problem have an entry, keyed by node identity (equal nodes in other places of the tree
+ * are other nodes). A node has at most one diagnostic, a later report for the same node replaces the earlier one.
+ * Reading all diagnostics costs time in the number of diagnostics, not in the size of the AST.
+ */
+public class Diagnostics {
+
+    //In the order they were reported
+    private final ArrayList<Diagnostic> diagnostics = new ArrayList<>();
+    //Position of the diagnostic of each node in the list
+    private final IdentityHashMap<ASTNode, Integer> indexes = new IdentityHashMap<>();
+    private int errors = 0;
+
+    public void error(ASTNode node, String code, String message) {
+        report(new Diagnostic(node, Diagnostic.Severity.ERROR, code, message));
+    }
+
+    public void report(Diagnostic diagnostic) {
+        Integer index = indexes.get(diagnostic.node);
+        if (index == null) {
+            indexes.put(diagnostic.node, diagnostics.size());
+            diagnostics.add(diagnostic);
+        } else {
+            if (diagnostics.get(index).severity == Diagnostic.Severity.ERROR) {
+                errors--;
+            }
+            diagnostics.set(index, diagnostic);
+        }
+        if (diagnostic.severity == Diagnostic.Severity.ERROR) {
+            errors++;
+        }
+    }
+
+    /**
+     * @return The diagnostic of the node, or null.
+     */
+    public Diagnostic get(ASTNode node) {
+        Integer index = indexes.get(node);
+        return index != null ? diagnostics.get(index) : null;
+    }
+
+    public boolean hasError(ASTNode node) {
+        Diagnostic diagnostic = get(node);
+        return diagnostic != null && diagnostic.severity == Diagnostic.Severity.ERROR;
+    }
+
+    public boolean hasErrors() {
+        return errors > 0;
+    }
+
+    public int size() {
+        return diagnostics.size();
+    }
+
+    /**
+     * @return All diagnostics in the order they were reported.
+     */
+    public List<Diagnostic> getAll() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+}
@@ -1,20 +1,26 @@
 package nl.han.ica.icss.checker;
 
+import nl.han.ica.datastructures.HANStack;
+import nl.han.ica.datastructures.IHANStack;
+import nl.han.ica.datastructures.ScopeFrames;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Expression;
 import nl.han.ica.icss.ast.Literal;
 import nl.han.ica.icss.ast.Operation;
 import nl.han.ica.icss.ast.VariableReference;
 import nl.han.ica.icss.ast.literals.*;
-import nl.han.ica.icss.ast.operations.AddOperation;
 import nl.han.ica.icss.ast.operations.MultiplyOperation;
-import nl.han.ica.icss.ast.operations.SubtractOperation;
 import nl.han.ica.icss.ast.types.ExpressionType;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.ListIterator;
+/**
+ * Determines the types of expressions. Each node of an expression is visited in post-order with the types of
+ * the operands that are still waiting for their operation as context.
+ */
+public class ExpressionTypeHelper implements ASTVisitor<ExpressionType, IHANStack<ExpressionType>> {
+
+    //Scopes of the expression that is being typed, only set during getVariableType
+    private ScopeFrames<ExpressionType> variableTypes;
 
-public class ExpressionTypeHelper {
     /**
      * Returns the type of the given expression.
      *
@@ -22,70 +28,83 @@ public class ExpressionTypeHelper {
      * @param variableTypes The variable types to use when determining the type of a variable reference.
      * @see Expression
      */
-    public ExpressionType getVariableType(Expression expression, LinkedList<HashMap<String, ExpressionType>> variableTypes) {
-        if (expression instanceof VariableReference) {
-            return findVariableTypeOfReference((VariableReference) expression, variableTypes);
-        } else if (expression instanceof Operation) {
-            return getOperationType((Operation) expression, variableTypes);
-        } else if (expression instanceof Literal) {
-            return getLiteralType((Literal) expression);
-        } else {
-            throw new UnsupportedOperationException("Unknown expression type: " + expression.getClass().getName());
+    public ExpressionType getVariableType(Expression expression, ScopeFrames<ExpressionType> variableTypes) {
+        this.variableTypes = variableTypes;
+        //operands come before their operation, so each operation finds the types of its operands on top of the stack
+        IHANStack<ExpressionType> types = new HANStack<>();
+        for (Expression current : expression.postOrder()) {
+            types.push(current.accept(this, types));
         }
+        this.variableTypes = null;
+        return types.pop();
     }
 
     /**
      * Returns the type of the given operation.
      *
-     * @param operation     The operation to get the type of.
-     * @param variableTypes The variable types to use when determining the type of a variable reference.
+     * @param operation The operation to get the type of.
+     * @param left      The type of the left operand.
+     * @param right     The type of the right operand.
      * @return The type of the operation.
      */
-    private ExpressionType getOperationType(Operation operation, LinkedList<HashMap<String, ExpressionType>> variableTypes) {
-        ExpressionType left = getVariableType(operation.lhs, variableTypes);
-        ExpressionType right = getVariableType(operation.rhs, variableTypes);
-
-        if (operation instanceof AddOperation || operation instanceof SubtractOperation) {
-            return left;
-        } else if (operation instanceof MultiplyOperation) {
-            return left != ExpressionType.SCALAR ? left : right;
-        } else {
-            throw new UnsupportedOperationException("Unknown operation type: " + operation.getClass().getName());
+    public ExpressionType getOperationType(Operation operation, ExpressionType left, ExpressionType right) {
+        //only a multiplication can take its type from the right operand (scalar * pixel)
+        if (operation instanceof MultiplyOperation && left == ExpressionType.SCALAR) {
+            return right;
         }
+        return left;
     }
 
-    /**
-     * Returns the type of the given literal.
-     *
-     * @param literal The literal to get the type of.
-     * @see Literal
-     */
-    private ExpressionType getLiteralType(Literal literal) {
-        if (literal instanceof PixelLiteral) {
-            return ExpressionType.PIXEL;
-        } else if (literal instanceof PercentageLiteral) {
-            return ExpressionType.PERCENTAGE;
-        } else if (literal instanceof ColorLiteral) {
-            return ExpressionType.COLOR;
-        } else if (literal instanceof ScalarLiteral) {
-            return ExpressionType.SCALAR;
-        } else if (literal instanceof BoolLiteral) {
-            return ExpressionType.BOOL;
-        }
+    @Override
+    public ExpressionType visitOperation(Operation operation, IHANStack<ExpressionType> operandTypes) {
+        ExpressionType right = operandTypes.pop();
+        ExpressionType left = operandTypes.pop();
+        return getOperationType(operation, left, right);
+    }
 
-        throw new UnsupportedOperationException("Unknown literal type: " + literal.getClass().getName());
+    @Override
+    public ExpressionType visitVariableReference(VariableReference variableReference, IHANStack<ExpressionType> operandTypes) {
+        return findVariableTypeOfReference(variableReference, variableTypes);
+    }
+
+    //--------------Literals--------------
+    @Override
+    public ExpressionType visitPixelLiteral(PixelLiteral literal, IHANStack<ExpressionType> operandTypes) {
+        return ExpressionType.PIXEL;
     }
 
-    public ExpressionType findVariableTypeOfReference(VariableReference variableReference, LinkedList<HashMap<String, ExpressionType>> variableTypes) {
-        ListIterator<HashMap<String, ExpressionType>> iterator = variableTypes.listIterator(variableTypes.size());
+    @Override
+    public ExpressionType visitPercentageLiteral(PercentageLiteral literal, IHANStack<ExpressionType> operandTypes) {
+        return ExpressionType.PERCENTAGE;
+    }
+
+    @Override
+    public ExpressionType visitColorLiteral(ColorLiteral literal, IHANStack<ExpressionType> operandTypes) {
+        return ExpressionType.COLOR;
+    }
 
+    @Override
+    public ExpressionType visitScalarLiteral(ScalarLiteral literal, IHANStack<ExpressionType> operandTypes) {
+        return ExpressionType.SCALAR;
+    }
+
+    @Override
+    public ExpressionType visitBoolLiteral(BoolLiteral literal, IHANStack<ExpressionType> operandTypes) {
+        return ExpressionType.BOOL;
+    }
 
-        while (iterator.hasPrevious()) {
-            HashMap<String, ExpressionType> currentScope = iterator.previous();
-            if (currentScope.containsKey(variableReference.name)) {
-                return currentScope.get(variableReference.name);
-            }
+    @Override
+    public ExpressionType visitLiteral(Literal literal, IHANStack<ExpressionType> operandTypes) {
+        throw new UnsupportedOperationException("Unknown literal type: " + literal.getClass().getName());
+    }
+
+    /**
+     * @return The type stored for the declaration the reference is bound to, or null if it is unresolved.
+     */
+    public ExpressionType findVariableTypeOfReference(VariableReference variableReference, ScopeFrames<ExpressionType> variableTypes) {
+        if (!variableReference.isResolved()) {
+            return null;
         }
-        return null;
+        return variableTypes.get(variableReference.scopeLevel, variableReference.slot);
     }
 }
@@ -0,0 +1,304 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.VariableAssignment;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Checks a stylesheet again after an edit, by checking only the top-level statements that changed and the
+ * statements that depend on them.
+ * <p>
+ * Made for the ASTs of {@link nl.han.ica.icss.parser.IncrementalParser}, which keeps the nodes of the statements
+ * that were not edited and tells which ones it replaced, see {@link #update(AST, int, int)}.
+ * <p>
+ * Each statement keeps its own diagnostics and the names of the global variables it uses or declares. From
+ * those names a dependency graph is kept, from each global variable to the statements that depend on it. When a
+ * declaration of a global is added or removed, or the type of its value changes, the statements after it that
+ * depend on it are checked again. Local variables never reach outside their statement, so they need no edges:
+ * a statement is always checked as a whole.
+ * <p>
+ * Global variables keep the slot of their name between checks, so the bindings of unchanged statements stay
+ * valid when a global is added in front of them. A stale statement is checked against the global assignments
+ * in front of it only, so the work does not grow with the size of the stylesheet. The diagnostics are the same
+ * as those of a full {@link Checker#check(AST)}, in the same order.
+ */
+public class IncrementalChecker {
+
+    private static final Comparator<Statement> BY_INDEX = Comparator.comparingInt(statement -> statement.index);
+
+    private final PropertySchema properties;
+    //The statements of the last checked stylesheet, in order
+    private final ArrayList<Statement> statements = new ArrayList<>();
+    //The global variable assignments among them, in order
+    private final ArrayList<Statement> globals = new ArrayList<>();
+    //The statements that have diagnostics, in order
+    private final TreeSet<Statement> withDiagnostics = new TreeSet<>(BY_INDEX);
+    //Statements that use or declare each global variable
+    private final HashMap<String, HashSet<Statement>> dependents = new HashMap<>();
+    private final HashMap<String, Integer> globalSlots = new HashMap<>();
+
+    //Stale statements that still have to be checked, first statement first
+    private final PriorityQueue<Statement> pending = new PriorityQueue<>(BY_INDEX);
+    private boolean diagnosticsChanged;
+    private Diagnostics diagnostics = new Diagnostics();
+    //Number of statements checked by the last check
+    private int checkedStatements;
+
+    //A top-level statement with what the last check of it found
+    private static final class Statement {
+        final ASTNode node;
+        //Position in the stylesheet
+        int index;
+        List<Diagnostic> resolved = Collections.emptyList();
+        List<Diagnostic> checked = Collections.emptyList();
+        HashSet<String> globals = new HashSet<>();
+        //For global variable assignments, the type of the value
+        ExpressionType type;
+        boolean stale;
+
+        Statement(ASTNode node, int index) {
+            this.node = node;
+            this.index = index;
+        }
+
+        boolean hasDiagnostics() {
+            return !resolved.isEmpty() || !checked.isEmpty();
+        }
+    }
+
+    public IncrementalChecker() {
+        this(PropertySchema.getDefault());
+    }
+
+    public IncrementalChecker(PropertySchema properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Checks the AST again, finding the changed statements by comparing its nodes with those of the last
+     * checked AST. The comparison takes time in the number of statements, {@link #update(AST, int, int)} does not.
+     *
+     * @return The problems found in the AST, empty if there are none.
+     */
+    public Diagnostics check(AST ast) {
+        List<ASTNode> body = ast.root.body;
+        int oldCount = statements.size();
+        int newCount = body.size();
+
+        //only the statements between the unchanged first and last ones were replaced
+        int first = 0;
+        while (first < oldCount && first < newCount && statements.get(first).node == body.get(first)) {
+            first++;
+        }
+        int suffix = 0;
+        while (suffix < oldCount - first && suffix < newCount - first
+                && statements.get(oldCount - 1 - suffix).node == body.get(newCount - 1 - suffix)) {
+            suffix++;
+        }
+        return update(ast, first, oldCount - first - suffix);
+    }
+
+    /**
+     * Checks the AST again after some of the statements of the last checked AST were replaced.
+     *
+     * @param first    Position of the first replaced statement.
+     * @param replaced Number of statements of the last AST that were replaced, starting at first. All others
+     *                 must be the same nodes in the new AST.
+     * @return The problems found in the AST, empty if there are none.
+     */
+    public Diagnostics update(AST ast, int first, int replaced) {
+        List<ASTNode> body = ast.root.body;
+        int added = body.size() - statements.size() + replaced;
+        diagnosticsChanged = false;
+
+        //the global assignments from the first replaced statement on
+        int firstGlobal = firstGlobalAtOrAfter(first);
+        int lastGlobal = firstGlobalAtOrAfter(first + replaced);
+
+        HashSet<String> changedGlobals = new HashSet<>();
+        List<Statement> removed = statements.subList(first, first + replaced);
+        for (Statement statement : removed) {
+            unlink(statement);
+            if (statement.hasDiagnostics()) {
+                withDiagnostics.remove(statement);
+                diagnosticsChanged = true;
+            }
+            if (statement.node instanceof VariableAssignment) {
+                changedGlobals.add(((VariableAssignment) statement.node).name.name);
+            }
+        }
+        removed.clear();
+        globals.subList(firstGlobal, lastGlobal).clear();
+
+        ArrayList<Statement> fresh = new ArrayList<>(added);
+        ArrayList<Statement> freshGlobals = new ArrayList<>();
+        for (int i = first; i < first + added; i++) {
+            Statement statement = new Statement(body.get(i), i);
+            fresh.add(statement);
+            if (statement.node instanceof VariableAssignment) {
+                freshGlobals.add(statement);
+                changedGlobals.add(((VariableAssignment) statement.node).name.name);
+            }
+        }
+        statements.addAll(first, fresh);
+        globals.addAll(firstGlobal, freshGlobals);
+        if (added != replaced) {
+            //the statements after the edit moved
+            for (int i = first + added; i < statements.size(); i++) {
+                statements.get(i).index = i;
+            }
+        }
+
+        for (Statement statement : fresh) {
+            markStale(statement);
+        }
+        markDependents(changedGlobals, first);
+        checkPending();
+
+        if (diagnosticsChanged) {
+            collectDiagnostics();
+        }
+        return diagnostics;
+    }
+
+    /**
+     * @return The problems found by the last check.
+     */
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return How many top-level statements the last check checked.
+     */
+    public int getCheckedStatements() {
+        return checkedStatements;
+    }
+
+    /**
+     * Checks the stale statements in order. Before each one the global assignments in front of it are declared,
+     * so it sees the global scope as it is at its place.
+     */
+    private void checkPending() {
+        Checker checker = new Checker(properties);
+        checker.beginStylesheet(globalSlots);
+        checkedStatements = 0;
+
+        int declared = 0;
+        Statement statement;
+        while ((statement = pending.poll()) != null) {
+            while (declared < globals.size() && globals.get(declared).index < statement.index) {
+                Statement global = globals.get(declared++);
+                checker.declareGlobal((VariableAssignment) global.node, global.type);
+            }
+            check(checker, statement);
+        }
+    }
+
+    private void check(Checker checker, Statement statement) {
+        boolean hadDiagnostics = statement.hasDiagnostics();
+        unlink(statement);
+
+        Diagnostics resolved = new Diagnostics();
+        Diagnostics checked = new Diagnostics();
+        checker.checkStatement(statement.node, resolved, checked, statement.globals);
+        statement.resolved = resolved.size() == 0 ? Collections.emptyList() : new ArrayList<>(resolved.getAll());
+        statement.checked = checked.size() == 0 ? Collections.emptyList() : new ArrayList<>(checked.getAll());
+        statement.stale = false;
+        checkedStatements++;
+
+        for (String name : statement.globals) {
+            dependents.computeIfAbsent(name, key -> new HashSet<>()).add(statement);
+        }
+        if (hadDiagnostics || statement.hasDiagnostics()) {
+            withDiagnostics.remove(statement);
+            if (statement.hasDiagnostics()) {
+                withDiagnostics.add(statement);
+            }
+            diagnosticsChanged = true;
+        }
+
+        if (statement.node instanceof VariableAssignment) {
+            VariableAssignment assignment = (VariableAssignment) statement.node;
+            ExpressionType type = checker.typeOf(assignment.expression);
+            if (!Objects.equals(type, statement.type)) {
+                statement.type = type;
+                markDependents(Collections.singleton(assignment.name.name), statement.index + 1);
+            }
+        }
+    }
+
+    /**
+     * Marks the statements that depend on the given globals, from the given position on: statements in front of
+     * a declaration do not see it.
+     */
+    private void markDependents(Iterable<String> names, int from) {
+        for (String name : names) {
+            HashSet<Statement> users = dependents.get(name);
+            if (users != null) {
+                for (Statement user : users) {
+                    if (user.index >= from) {
+                        markStale(user);
+                    }
+                }
+            }
+        }
+    }
+
+    private void markStale(Statement statement) {
+        if (!statement.stale) {
+            statement.stale = true;
+            pending.add(statement);
+        }
+    }
+
+    //Removes the edges of a statement from the graph
+    private void unlink(Statement statement) {
+        for (String name : statement.globals) {
+            HashSet<Statement> users = dependents.get(name);
+            if (users != null) {
+                users.remove(statement);
+                if (users.isEmpty()) {
+                    dependents.remove(name);
+                }
+            }
+        }
+        statement.globals = new HashSet<>();
+    }
+
+    private int firstGlobalAtOrAfter(int index) {
+        int low = 0;
+        int high = globals.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (globals.get(middle).index < index) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void collectDiagnostics() {
+        //problems found by the resolver come first, like in a full check
+        diagnostics = new Diagnostics();
+        for (Statement statement : withDiagnostics) {
+            statement.resolved.forEach(diagnostics::report);
+        }
+        for (Statement statement : withDiagnostics) {
+            statement.checked.forEach(diagnostics::report);
+        }
+    }
+}
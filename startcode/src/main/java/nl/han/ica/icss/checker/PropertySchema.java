@@ -0,0 +1,120 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.Symbols;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * The CSS properties the checker knows, each with the types of values it accepts.
+ * <p>
+ * A schema is read from a text file with one property per line: the name, a colon and the accepted types
+ * (pixel, percentage, color, scalar) separated by spaces. Empty lines and lines starting with # are skipped.
+ * The default schema is the resource properties.txt.
+ * <p>
+ * Property names are interned with {@link Symbols} like the names in the AST, so a lookup with the name of a
+ * {@link nl.han.ica.icss.ast.PropertyName} finds its entry on the reference comparison. The accepted types of
+ * a property are a bit set, so checking a value type is a single mask test.
+ */
+public class PropertySchema {
+
+    private static final String DEFAULT_RESOURCE = "/properties.txt";
+
+    private final HashMap<String, Property> properties = new HashMap<>();
+
+    /**
+     * A property and the types of values it accepts.
+     */
+    public static final class Property {
+        public final String name;
+        //Bit (1 << ordinal) of each accepted ExpressionType
+        private final int types;
+
+        Property(String name, int types) {
+            this.name = name;
+            this.types = types;
+        }
+
+        public boolean accepts(ExpressionType type) {
+            return (types & 1 << type.ordinal()) != 0;
+        }
+    }
+
+    /**
+     * @return The schema of the properties.txt resource, read once.
+     */
+    public static PropertySchema getDefault() {
+        return DefaultSchema.INSTANCE;
+    }
+
+    //Loaded on first use
+    private static final class DefaultSchema {
+        static final PropertySchema INSTANCE = loadResource();
+
+        private static PropertySchema loadResource() {
+            try (InputStream in = PropertySchema.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing resource " + DEFAULT_RESOURCE);
+                }
+                return load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Reads a schema.
+     *
+     * @throws IOException If the schema cannot be read or a line is not a valid property.
+     */
+    public static PropertySchema load(Reader reader) throws IOException {
+        PropertySchema schema = new PropertySchema();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        for (int number = 1; (line = lines.readLine()) != null; number++) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            int colon = line.indexOf(':');
+            String name = colon < 0 ? "" : line.substring(0, colon).trim();
+            String[] types = colon < 0 ? new String[0] : line.substring(colon + 1).trim().split("\\s+");
+            if (name.isEmpty() || types[0].isEmpty()) {
+                throw new IOException("Line " + number + ": expected a property name, a colon and its value types");
+            }
+
+            int mask = 0;
+            for (String type : types) {
+                try {
+                    mask |= 1 << ExpressionType.valueOf(type.toUpperCase(Locale.ROOT)).ordinal();
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Line " + number + ": unknown value type " + type);
+                }
+            }
+            String symbol = Symbols.intern(name);
+            schema.properties.put(symbol, new Property(symbol, mask));
+        }
+        return schema;
+    }
+
+    /**
+     * @return The property with the given name, or null if it is unknown.
+     */
+    public Property get(String name) {
+        return properties.get(name);
+    }
+
+    public int size() {
+        return properties.size();
+    }
+}
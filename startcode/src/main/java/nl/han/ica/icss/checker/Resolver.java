@@ -0,0 +1,205 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.ast.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * Binds every {@link VariableReference} to the declaration it refers to, so later passes can look variables up
+ * by position instead of by name.
+ * <p>
+ * Scopes are opened by the stylesheet, each stylerule, and the body of each if- and else-clause. The else body is
+ * a scope next to the if body, not inside it. Within a scope each declared name gets the next free slot, a
+ * reference is bound to the scope level and slot of the innermost declaration with its name
+ * ({@link VariableReference#scopeLevel}, {@link VariableReference#slot}). A later pass that opens a
+ * {@link nl.han.ica.datastructures.ScopeFrames} frame at the same nodes finds each variable at that position.
+ * <p>
+ * Undeclared and duplicate variables are reported to the given {@link Diagnostics}. Names are only hashed here.
+ */
+public class Resolver implements ASTVisitor<Void, Void> {
+
+    //Slot of each declared name, one map per open scope
+    private final ArrayList<HashMap<String, Integer>> scopes = new ArrayList<>();
+    private Diagnostics diagnostics;
+    //Slot of each global name that stays the same between checks, null to number globals in declaration order
+    private HashMap<String, Integer> globalSlots;
+    //Names of the global variables the current statement uses or declares, null if they are not collected
+    private Set<String> globalsUsed;
+
+    /**
+     * Resolves all variable references of the AST.
+     */
+    public void resolve(AST ast, Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+        scopes.clear();
+        ast.root.accept(this, null);
+    }
+
+    /**
+     * Starts resolving a stylesheet one top-level statement at a time, see {@link #resolveStatement(ASTNode)}.
+     * Only the global scope is kept between statements.
+     */
+    public void beginStylesheet(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+        scopes.clear();
+        scopes.add(new HashMap<>());
+    }
+
+    /**
+     * Continues resolving a stylesheet with the given global scope, for stylerules only: the global scope is read
+     * but not changed, so several resolvers can share it.
+     *
+     * @param globalScope The slots of the global variables, see {@link #copyGlobalScope()}.
+     */
+    void beginStylesheet(HashMap<String, Integer> globalScope, Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+        scopes.clear();
+        scopes.add(globalScope);
+    }
+
+    /**
+     * @return A copy of the slots of the variables declared so far in the global scope.
+     */
+    HashMap<String, Integer> copyGlobalScope() {
+        return new HashMap<>(scopes.get(0));
+    }
+
+    /**
+     * Reports the problems of the following statements to other diagnostics.
+     */
+    void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Gives each global variable the slot of its name in the given table, adding names that are not in it yet,
+     * instead of the next free slot. Slots then stay the same when a global is added before others.
+     */
+    void setGlobalSlots(HashMap<String, Integer> globalSlots) {
+        this.globalSlots = globalSlots;
+    }
+
+    /**
+     * Collects the names of the global variables the following statements use or declare, including
+     * references that are not declared.
+     *
+     * @param globalsUsed The set to add the names to, or null to stop collecting.
+     */
+    void collectGlobals(Set<String> globalsUsed) {
+        this.globalsUsed = globalsUsed;
+    }
+
+    /**
+     * Declares a global variable that was resolved before, without resolving its assignment again.
+     */
+    void declareGlobal(String name, int slot) {
+        scopes.get(0).put(name, slot);
+    }
+
+    /**
+     * Resolves a single top-level statement (stylerule or variable assignment) against the global scope.
+     */
+    public void resolveStatement(ASTNode statement) {
+        statement.accept(this, null);
+    }
+
+    private void resolveBody(ArrayList<ASTNode> body) {
+        scopes.add(new HashMap<>());
+        for (ASTNode child : body) {
+            child.accept(this, null);
+        }
+        scopes.remove(scopes.size() - 1);
+    }
+
+    private void resolveExpression(Expression expression) {
+        if (expression instanceof Operation) {
+            for (Expression operand : expression.postOrder()) {
+                if (operand instanceof VariableReference) {
+                    resolveReference((VariableReference) operand);
+                }
+            }
+        } else if (expression instanceof VariableReference) {
+            resolveReference((VariableReference) expression);
+        }
+    }
+
+    private void resolveReference(VariableReference reference) {
+        for (int level = scopes.size() - 1; level >= 0; level--) {
+            Integer slot = scopes.get(level).get(reference.name);
+            if (slot != null) {
+                reference.scopeLevel = level;
+                reference.slot = slot;
+                if (level == 0 && globalsUsed != null) {
+                    globalsUsed.add(reference.name);
+                }
+                return;
+            }
+        }
+        reference.scopeLevel = reference.slot = -1;
+        if (globalsUsed != null) {
+            globalsUsed.add(reference.name);
+        }
+        diagnostics.error(reference, "undeclared-variable", "Variable " + reference.name + " not declared");
+    }
+
+    @Override
+    public Void visitNode(ASTNode node, Void context) {
+        //selectors, property names and literals have no references
+        return null;
+    }
+
+    @Override
+    public Void visitStylesheet(Stylesheet node, Void context) {
+        resolveBody(node.body);
+        return null;
+    }
+
+    @Override
+    public Void visitStylerule(Stylerule node, Void context) {
+        resolveBody(node.body);
+        return null;
+    }
+
+    @Override
+    public Void visitVariableAssignment(VariableAssignment node, Void context) {
+        //the value can only use variables declared before this one
+        resolveExpression(node.expression);
+
+        int level = scopes.size() - 1;
+        HashMap<String, Integer> scope = scopes.get(level);
+        Integer slot = scope.get(node.name.name);
+        if (slot != null) {
+            //the new value replaces the old one in the same slot
+            diagnostics.error(node, "duplicate-variable", "Variable " + node.name.name + " already declared within scope");
+        } else {
+            slot = level == 0 && globalSlots != null ? globalSlots.computeIfAbsent(node.name.name, name -> globalSlots.size())
+                    : scope.size();
+            scope.put(node.name.name, slot);
+        }
+        if (level == 0 && globalsUsed != null) {
+            //an earlier or later declaration of the same name decides whether this one is a duplicate
+            globalsUsed.add(node.name.name);
+        }
+        node.name.scopeLevel = level;
+        node.name.slot = slot;
+        return null;
+    }
+
+    @Override
+    public Void visitDeclaration(Declaration node, Void context) {
+        resolveExpression(node.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitIfClause(IfClause node, Void context) {
+        resolveExpression(node.conditionalExpression);
+        resolveBody(node.body);
+        if (node.elseClause != null) {
+            resolveBody(node.elseClause.body);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,312 @@
+package nl.han.ica.icss.cli;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.StreamingCompiler;
+import nl.han.ica.icss.parser.ParseCache;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point that compiles .icss files to .css without starting the GUI.
+ * <p>
+ * Arguments are files, directories (searched recursively for *.icss) or glob patterns
+ * such as {@code styles/**.icss}. Every file is compiled by its own {@link Pipeline}
+ * on a fork-join pool that uses all available cores.
+ * <p>
+ * With {@code --stream} every file is compiled statement by statement by a {@link StreamingCompiler},
+ * which keeps memory bounded for very large files.
+ * <p>
+ * With {@code --cache dir} parsed ASTs are kept in a {@link ParseCache} in that directory, files that did not
+ * change since an earlier run are not parsed again. Streaming compiles do not use the cache.
+ * <p>
+ * Usage: {@code BatchCompiler [-o outputDir] [-j threads] [--stream] [--cache dir] <file|dir|glob>...}
+ */
+public class BatchCompiler {
+
+    private static final String SOURCE_EXTENSION = ".icss";
+    private static final String TARGET_EXTENSION = ".css";
+    private static final String USAGE = "Usage: BatchCompiler [-o outputDir] [-j threads] [--stream] [--cache dir] <file|dir|glob>...";
+
+    private Path outputDirectory;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean streaming = false;
+    private ParseCache parseCache;
+
+    public static void main(String[] args) {
+        System.exit(execute(args));
+    }
+
+    /**
+     * Runs the compiler with command line arguments.
+     *
+     * @return The exit code: 0 if every file compiled, 1 if a file has errors, 2 for wrong arguments or I/O errors.
+     */
+    public static int execute(String... args) {
+        BatchCompiler compiler = new BatchCompiler();
+        List<String> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-o") && i + 1 < args.length) {
+                compiler.setOutputDirectory(Paths.get(args[++i]));
+            } else if (args[i].equals("-j") && i + 1 < args.length) {
+                int threads = parseThreads(args[++i]);
+                if (threads < 1) {
+                    System.err.println(USAGE);
+                    return 2;
+                }
+                compiler.setParallelism(threads);
+            } else if (args[i].equals("--stream")) {
+                compiler.setStreaming(true);
+            } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                compiler.setParseCache(new ParseCache(Paths.get(args[++i])));
+            } else {
+                inputs.add(args[i]);
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        try {
+            return compiler.run(inputs) ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("ERROR: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    //The number of threads, 0 if the argument is not a number
+    private static int parseThreads(String argument) {
+        try {
+            return Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public void setOutputDirectory(Path outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public void setParseCache(ParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    /**
+     * Compiles all sources found for the given inputs and prints a report.
+     *
+     * @param inputs Files, directories or glob patterns.
+     * @return true if every file compiled without errors.
+     */
+    public boolean run(List<String> inputs) throws IOException {
+        long start = System.nanoTime();
+
+        List<Source> sources = new ArrayList<>();
+        for (String input : inputs) {
+            sources.addAll(findSources(input));
+        }
+
+        List<Result> results = compileAll(sources);
+
+        int failed = 0;
+        for (Result result : results) {
+            if (!result.errors.isEmpty()) {
+                failed++;
+                for (String error : result.errors) {
+                    System.err.println(result.source.file + ": " + error);
+                }
+            }
+        }
+
+        long wallTime = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Compiled " + results.size() + " file(s), " + failed + " failed, in " + wallTime + " ms"
+                + " using " + parallelism + " thread(s), " + Pipeline.getFullContextFallbacks() + " LL fallback(s)");
+        return failed == 0;
+    }
+
+    /**
+     * Compiles the sources in parallel. Results are returned in the order of the sources.
+     */
+    public List<Result> compileAll(List<Source> sources) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> sources.parallelStream()
+                    .map(this::compile)
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Compilation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Compilation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs parse, check, transform and generate for a single file with a fresh pipeline.
+     */
+    public Result compile(Source source) {
+        if (streaming) {
+            return compileStreaming(source);
+        }
+        Pipeline pipeline = new Pipeline();
+        pipeline.setTwoStageParsing(true);
+        pipeline.setSinglePassParsing(true);
+        pipeline.setParseCache(parseCache);
+        try {
+            pipeline.parsePath(source.file);
+            if (!pipeline.isParsed()) {
+                return new Result(source, pipeline.getErrors());
+            }
+            if (!pipeline.check()) {
+                return new Result(source, pipeline.getErrors());
+            }
+            pipeline.transform();
+
+            Path target = targetFor(source);
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            Files.writeString(target, pipeline.generate(), StandardCharsets.UTF_8);
+            return new Result(source, Collections.emptyList());
+        } catch (IOException | RuntimeException e) {
+            return new Result(source, Collections.singletonList("ERROR: " + e));
+        }
+    }
+
+    /**
+     * Compiles a single file statement by statement. The output is written to a temporary file first,
+     * so a failing compile does not leave a partial .css file behind.
+     */
+    private Result compileStreaming(Source source) {
+        StreamingCompiler compiler = new StreamingCompiler();
+        Path target = targetFor(source);
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            boolean compiled;
+            try (Reader reader = Files.newBufferedReader(source.file, StandardCharsets.UTF_8);
+                 Writer writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                compiled = compiler.compile(reader, writer);
+            }
+            if (!compiled) {
+                Files.deleteIfExists(partial);
+                return new Result(source, compiler.getErrors());
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            return new Result(source, Collections.emptyList());
+        } catch (IOException | RuntimeException e) {
+            return new Result(source, Collections.singletonList("ERROR: " + e));
+        }
+    }
+
+    private Path targetFor(Source source) {
+        String fileName = source.file.getFileName().toString();
+        //explicit inputs are checked for the extension, but a file name must never lose other characters
+        String baseName = fileName.endsWith(SOURCE_EXTENSION)
+                ? fileName.substring(0, fileName.length() - SOURCE_EXTENSION.length()) : fileName;
+        String cssName = baseName + TARGET_EXTENSION;
+
+        if (outputDirectory == null) {
+            return source.file.resolveSibling(cssName);
+        }
+        Path relative = source.root.relativize(source.file).resolveSibling(cssName);
+        return outputDirectory.resolve(relative);
+    }
+
+    //--------------Input discovery--------------
+    private List<Source> findSources(String input) throws IOException {
+        int globStart = firstGlobCharacter(input);
+        if (globStart < 0) {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                return walk(path, file -> true);
+            }
+            if (!Files.exists(path)) {
+                throw new NoSuchFileException(input);
+            }
+            if (!input.endsWith(SOURCE_EXTENSION)) {
+                throw new IOException(input + " is not an " + SOURCE_EXTENSION + " file");
+            }
+            Path parent = path.getParent();
+            return Collections.singletonList(new Source(path, parent != null ? parent : Paths.get("")));
+        }
+
+        //Walk from the last directory before the first glob character
+        int separator = input.lastIndexOf('/', globStart);
+        Path root = separator < 0 ? Paths.get(".") : Paths.get(input.substring(0, separator + 1));
+        String pattern = input.substring(separator + 1);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        return walk(root, matcher);
+    }
+
+    private List<Source> walk(Path root, PathMatcher matcher) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> file.getFileName().toString().endsWith(SOURCE_EXTENSION))
+                    .filter(file -> matcher.matches(root.relativize(file)))
+                    .sorted()
+                    .map(file -> new Source(file, root))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static int firstGlobCharacter(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * An input file together with the root it was found under, used to mirror the directory layout.
+     */
+    public static class Source {
+        public final Path file;
+        public final Path root;
+
+        public Source(Path file, Path root) {
+            this.file = file;
+            this.root = root;
+        }
+    }
+
+    public static class Result {
+        public final Source source;
+        public final List<String> errors;
+
+        public Result(Source source, List<String> errors) {
+            this.source = source;
+            this.errors = new ArrayList<>(errors);
+        }
+    }
+}
@@ -8,88 +8,123 @@ import nl.han.ica.icss.ast.selectors.ClassSelector;
 import nl.han.ica.icss.ast.selectors.IdSelector;
 import nl.han.ica.icss.ast.selectors.TagSelector;
 
-public class Generator {
+/**
+ * Generates CSS from an evaluated AST. Nodes are visited through {@link ASTVisitor} and all of them
+ * append to the same {@link StringBuilder}.
+ */
+public class Generator implements ASTVisitor<Void, StringBuilder> {
 
     public String generate(AST ast) {
         return generateNode(ast.root);
     }
 
+    /**
+     * Generates the CSS for a single top-level statement, variable assignments result in an empty string.
+     *
+     * @param statement An evaluated stylerule or variable assignment.
+     */
+    public String generateStatement(ASTNode statement) {
+        return generateNode(statement);
+    }
+
     private String generateNode(ASTNode node) {
         StringBuilder resultString = new StringBuilder();
-
-        if (node instanceof Stylesheet) {
-            resultString.append(generateStylesheet((Stylesheet) node));
-        } else if (node instanceof Stylerule) {
-            resultString.append(generateStylerule((Stylerule) node));
-        } else if (node instanceof Declaration) {
-            resultString.append(generateDeclaration((Declaration) node));
-        } else if (node instanceof Expression) {
-            resultString.append(generateExpression((Expression) node));
-        } else if (node instanceof Selector) {
-            resultString.append(generateSelectorNode((Selector) node));
-        }
-
+        node.accept(this, resultString);
         return resultString.toString();
     }
 
-    private String generateStylesheet(Stylesheet node) {
-        StringBuilder resultString = new StringBuilder();
-        for (ASTNode child : node.getChildren()) {
-            resultString.append(generateNode(child));
+    @Override
+    public Void visitNode(ASTNode node, StringBuilder resultString) {
+        //nodes without CSS output (variable assignments and if-clauses are evaluated away)
+        return null;
+    }
+
+    @Override
+    public Void visitStylesheet(Stylesheet node, StringBuilder resultString) {
+        for (int i = 0; i < node.getChildCount(); i++) {
+            node.getChild(i).accept(this, resultString);
         }
-        return resultString.toString();
+        return null;
     }
 
-    private String generateStylerule(Stylerule node) {
-        StringBuilder resultString = new StringBuilder();
+    @Override
+    public Void visitStylerule(Stylerule node, StringBuilder resultString) {
         //only one selector working
         //results in: "selector {"
         for (Selector selector : node.selectors) {
-            resultString.append(generateSelectorNode(selector));
+            selector.accept(this, resultString);
         }
         resultString.append(" {\n");
         //results in: "property: expression;}"
         for (ASTNode child : node.body) {
-            resultString.append(generateNode(child));
+            child.accept(this, resultString);
         }
         resultString.append("}\n\n");
-        return resultString.toString();
+        return null;
     }
 
-    private String generateDeclaration(Declaration node) {
-        StringBuilder resultString = new StringBuilder();
+    @Override
+    public Void visitDeclaration(Declaration node, StringBuilder resultString) {
         //indenting
         resultString.append("  ");
         //results in: "property: expression;"
         resultString.append(node.property.name);
         resultString.append(": ");
-        resultString.append(generateExpression(node.expression));
+        generateExpression(node.expression, resultString);
         resultString.append(";\n");
-        return resultString.toString();
+        return null;
     }
 
-    private String generateExpression(Expression node) {
-        if (node instanceof PixelLiteral) {
-            return ((PixelLiteral) node).value + "px";
-        } else if (node instanceof PercentageLiteral) {
-            return ((PercentageLiteral) node).value + "%";
-        } else if (node instanceof ColorLiteral) {
-            return ((ColorLiteral) node).value;
-        } else {
+    private void generateExpression(Expression node, StringBuilder resultString) {
+        if (!(node instanceof Literal)) {
             throw new IllegalArgumentException("Unknown expression type: " + node.getClass().getName() + "at Generator");
         }
+        node.accept(this, resultString);
     }
 
-    private String generateSelectorNode(Selector node) {
-        if (node instanceof TagSelector) {
-            return ((TagSelector) node).tag;
-        } else if (node instanceof IdSelector) {
-            return ((IdSelector) node).id;
-        } else if (node instanceof ClassSelector) {
-            return ((ClassSelector) node).cls;
-        }
-        throw new IllegalArgumentException("Unknown selector type: " + node.getClass().getName() + "at Generator");
+    @Override
+    public Void visitPixelLiteral(PixelLiteral node, StringBuilder resultString) {
+        resultString.append(node.value).append("px");
+        return null;
+    }
+
+    @Override
+    public Void visitPercentageLiteral(PercentageLiteral node, StringBuilder resultString) {
+        resultString.append(node.value).append("%");
+        return null;
+    }
+
+    @Override
+    public Void visitColorLiteral(ColorLiteral node, StringBuilder resultString) {
+        resultString.append(node.value);
+        return null;
+    }
+
+    @Override
+    public Void visitLiteral(Literal node, StringBuilder resultString) {
+        throw new IllegalArgumentException("Unknown expression type: " + node.getClass().getName() + "at Generator");
     }
 
+    @Override
+    public Void visitTagSelector(TagSelector node, StringBuilder resultString) {
+        resultString.append(node.tag);
+        return null;
+    }
+
+    @Override
+    public Void visitIdSelector(IdSelector node, StringBuilder resultString) {
+        resultString.append(node.id);
+        return null;
+    }
 
+    @Override
+    public Void visitClassSelector(ClassSelector node, StringBuilder resultString) {
+        resultString.append(node.cls);
+        return null;
+    }
+
+    @Override
+    public Void visitSelector(Selector node, StringBuilder resultString) {
+        throw new IllegalArgumentException("Unknown selector type: " + node.getClass().getName() + "at Generator");
+    }
 }
@@ -10,9 +10,18 @@ import nl.han.ica.icss.ast.operations.SubtractOperation;
 import nl.han.ica.icss.ast.selectors.ClassSelector;
 import nl.han.ica.icss.ast.selectors.IdSelector;
 import nl.han.ica.icss.ast.selectors.TagSelector;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 /**
  * This class extracts the ICSS Abstract Syntax Tree from the Antlr Parse tree.
+ * <p>
+ * Leaf nodes and operations are only created on exit events, so the listener can either walk a finished
+ * parse tree or be attached to the parser with {@code addParseListener} while {@code setBuildParseTree(false)}.
+ * In the second case the AST is built in the same pass as the parse and no parse tree is kept alive.
  */
 public class ASTListener extends ICSSBaseListener {
 
@@ -22,9 +31,17 @@ public class ASTListener extends ICSSBaseListener {
     //Use this to keep track of the parent nodes when recursively traversing the ast
     private final IHANStack<ASTNode> currentContainer;
 
+    //Finished (sub)expressions that are waiting for their operation or container
+    private final IHANStack<Expression> operands;
+
+    //Operators of the current expression that are waiting for their right operand
+    private final Deque<Operation> operators;
+
     public ASTListener() {
         ast = new AST();
         currentContainer = new HANStack<>();
+        operands = new HANStack<>();
+        operators = new ArrayDeque<>();
     }
 
     @Override
@@ -61,21 +78,18 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitVariableAssignment(ICSSParser.VariableAssignmentContext ctx) {
-        ASTNode current = currentContainer.pop();
+        VariableAssignment current = (VariableAssignment) currentContainer.pop();
+        //a literal value is attached directly, an expression is still waiting on the operand stack
+        if (current.expression == null && ctx.exception == null) {
+            current.addChild(operands.pop());
+        }
         currentContainer.peek().addChild(current);
         super.exitVariableAssignment(ctx);
     }
 
-    @Override
-    public void enterVariableReference(ICSSParser.VariableReferenceContext ctx) {
-        currentContainer.push(new VariableReference(ctx.getText()));
-        super.enterVariableReference(ctx);
-    }
-
     @Override
     public void exitVariableReference(ICSSParser.VariableReferenceContext ctx) {
-        ASTNode current = currentContainer.pop();
-        currentContainer.peek().addChild(current);
+        addLeaf(ctx, new VariableReference(ctx.getStart().getText()));
         super.exitVariableReference(ctx);
     }
 
@@ -88,86 +102,82 @@ public class ASTListener extends ICSSBaseListener {
 
     @Override
     public void exitDeclaration(ICSSParser.DeclarationContext ctx) {
-        ASTNode current = currentContainer.pop();
+        Declaration current = (Declaration) currentContainer.pop();
+        //a literal value is attached directly, an expression is still waiting on the operand stack
+        if (current.expression == null && ctx.exception == null) {
+            current.addChild(operands.pop());
+        }
         currentContainer.peek().addChild(current);
         super.exitDeclaration(ctx);
     }
 
-    @Override
-    public void enterPropertyName(ICSSParser.PropertyNameContext ctx) {
-        currentContainer.push(new PropertyName(ctx.getText()));
-        super.enterPropertyName(ctx);
-    }
-
     @Override
     public void exitPropertyName(ICSSParser.PropertyNameContext ctx) {
-        ASTNode current = currentContainer.pop();
-        currentContainer.peek().addChild(current);
+        currentContainer.peek().addChild(new PropertyName(ctx.getStart().getText()));
         super.exitPropertyName(ctx);
     }
 
     //--------------Selectors--------------
-    @Override
-    public void enterTagSelector(ICSSParser.TagSelectorContext ctx) {
-        currentContainer.push(new TagSelector(ctx.getText()));
-        super.enterTagSelector(ctx);
-    }
-
     @Override
     public void exitTagSelector(ICSSParser.TagSelectorContext ctx) {
-        ASTNode current = currentContainer.pop();
-        currentContainer.peek().addChild(current);
+        currentContainer.peek().addChild(new TagSelector(ctx.getStart().getText()));
         super.exitTagSelector(ctx);
     }
 
-    @Override
-    public void enterClassSelector(ICSSParser.ClassSelectorContext ctx) {
-        currentContainer.push(new ClassSelector(ctx.getText()));
-        super.enterClassSelector(ctx);
-    }
-
     @Override
     public void exitClassSelector(ICSSParser.ClassSelectorContext ctx) {
-        ASTNode current = currentContainer.pop();
-        currentContainer.peek().addChild(current);
+        currentContainer.peek().addChild(new ClassSelector(ctx.getStart().getText()));
         super.exitClassSelector(ctx);
     }
 
-    @Override
-    public void enterIdSelector(ICSSParser.IdSelectorContext ctx) {
-        currentContainer.push(new IdSelector(ctx.getText()));
-        super.enterIdSelector(ctx);
-    }
-
     @Override
     public void exitIdSelector(ICSSParser.IdSelectorContext ctx) {
-        ASTNode current = currentContainer.pop();
-        currentContainer.peek().addChild(current);
+        currentContainer.peek().addChild(new IdSelector(ctx.getStart().getText()));
         super.exitIdSelector(ctx);
     }
 
     //--------------Expressions--------------
+    // An expression is a flat list of operands and operators, the operation nodes are built with operator
+    // precedence parsing: operands and operators are seen from left to right, and before an operator is pushed
+    // every pending operator that binds at least as strong is applied to the top two operands.
+    // This builds left-associative trees (MUL before PLUS and MIN) in a single loop, whatever the chain length.
+    // Rules that failed to parse (ctx.exception is set) still exit, but may miss their operands.
     @Override
     public void enterExpression(ICSSParser.ExpressionContext ctx) {
-        if (ctx.getChildCount() == 1) {
-            return;
-        }
-        if (ctx.getChild(1).getText().equals("+")) {
-            currentContainer.push(new AddOperation());
-        } else if (ctx.getChild(1).getText().equals("-")) {
-            currentContainer.push(new SubtractOperation());
-        } else if (ctx.getChild(1).getText().equals("*")) {
-            currentContainer.push(new MultiplyOperation());
-        }
+        //expressions do not nest, operators left over from a failed expression are dropped
+        operators.clear();
+        super.enterExpression(ctx);
     }
 
     @Override
     public void exitExpression(ICSSParser.ExpressionContext ctx) {
-        if (ctx.getChildCount() == 1) {
+        if (ctx.exception != null) {
             return;
         }
-        ASTNode current = currentContainer.pop();
-        currentContainer.peek().addChild(current);
+        while (!operators.isEmpty()) {
+            applyOperator();
+        }
+        super.exitExpression(ctx);
+    }
+
+    private void pushOperator(Operation operation) {
+        while (!operators.isEmpty() && precedence(operators.peek()) >= precedence(operation)) {
+            applyOperator();
+        }
+        operators.push(operation);
+    }
+
+    private void applyOperator() {
+        Operation operation = operators.pop();
+        Expression rhs = operands.pop();
+        Expression lhs = operands.pop();
+        operation.addChild(lhs);
+        operation.addChild(rhs);
+        operands.push(operation);
+    }
+
+    private static int precedence(Operation operation) {
+        return operation instanceof MultiplyOperation ? 2 : 1;
     }
 
     //--------------IF support--------------
@@ -197,75 +207,84 @@ public class ASTListener extends ICSSBaseListener {
         super.exitElseClause(ctx);
     }
 
-    //--------------Literals--------------
-    // literal itself is not handled, as all it's children are handled (predefined by startcode)
-
     @Override
-    public void enterBoolLiteral(ICSSParser.BoolLiteralContext ctx) {
-        currentContainer.push(new BoolLiteral(ctx.getText()));
-        super.enterBoolLiteral(ctx);
+    public void visitTerminal(TerminalNode node) {
+        switch (node.getSymbol().getType()) {
+            case ICSSParser.MUL:
+                pushOperator(new MultiplyOperation());
+                break;
+            case ICSSParser.PLUS:
+                pushOperator(new AddOperation());
+                break;
+            case ICSSParser.MIN:
+                pushOperator(new SubtractOperation());
+                break;
+            case ICSSParser.BOX_BRACKET_CLOSE:
+                //the condition of an if-clause is complete once its closing bracket is seen
+                currentContainer.peek().addChild(operands.pop());
+                break;
+            default:
+                break;
+        }
     }
 
+    //--------------Literals--------------
+    // literal itself is not handled, as all it's children are handled (predefined by startcode)
+
     @Override
     public void exitBoolLiteral(ICSSParser.BoolLiteralContext ctx) {
-        ASTNode current = currentContainer.pop();
-        currentContainer.peek().addChild(current);
+        addLeaf(ctx, BoolLiteral.of(ctx.getStart().getText()));
         super.exitBoolLiteral(ctx);
     }
 
-    @Override
-    public void enterPixelLiteral(ICSSParser.PixelLiteralContext ctx) {
-        currentContainer.push(new PixelLiteral(ctx.getText()));
-        super.enterPixelLiteral(ctx);
-    }
-
     @Override
     public void exitPixelLiteral(ICSSParser.PixelLiteralContext ctx) {
-        ASTNode current = currentContainer.pop();
-        currentContainer.peek().addChild(current);
+        addLeaf(ctx, PixelLiteral.of(ctx.getStart().getText()));
         super.exitPixelLiteral(ctx);
     }
 
-    @Override
-    public void enterPercentageLiteral(ICSSParser.PercentageLiteralContext ctx) {
-        currentContainer.push(new PercentageLiteral(ctx.getText()));
-        super.enterPercentageLiteral(ctx);
-    }
-
     @Override
     public void exitPercentageLiteral(ICSSParser.PercentageLiteralContext ctx) {
-        ASTNode current = currentContainer.pop();
-        currentContainer.peek().addChild(current);
+        addLeaf(ctx, PercentageLiteral.of(ctx.getStart().getText()));
         super.exitPercentageLiteral(ctx);
     }
 
-    @Override
-    public void enterScalarLiteral(ICSSParser.ScalarLiteralContext ctx) {
-        currentContainer.push(new ScalarLiteral(ctx.getText()));
-        super.enterScalarLiteral(ctx);
-    }
-
     @Override
     public void exitScalarLiteral(ICSSParser.ScalarLiteralContext ctx) {
-        ASTNode current = currentContainer.pop();
-        currentContainer.peek().addChild(current);
+        addLeaf(ctx, ScalarLiteral.of(ctx.getStart().getText()));
         super.exitScalarLiteral(ctx);
     }
 
-    @Override
-    public void enterColorLiteral(ICSSParser.ColorLiteralContext ctx) {
-        currentContainer.push(new ColorLiteral(ctx.getText()));
-        super.enterColorLiteral(ctx);
-    }
-
     @Override
     public void exitColorLiteral(ICSSParser.ColorLiteralContext ctx) {
-        ASTNode current = currentContainer.pop();
-        currentContainer.peek().addChild(current);
+        addLeaf(ctx, ColorLiteral.of(ctx.getStart().getText()));
         super.exitColorLiteral(ctx);
     }
 
+    /**
+     * Leaves inside an expression become operands, other leaves belong to the current container.
+     */
+    private void addLeaf(ParserRuleContext ctx, Expression leaf) {
+        if (ctx.getParent() instanceof ICSSParser.OperandContext) {
+            operands.push(leaf);
+        } else {
+            currentContainer.peek().addChild(leaf);
+        }
+    }
+
+    /**
+     * Prepares the listener for parsing top-level statements one at a time (calling {@code stylerule()} or
+     * {@code variableAssignment()} on the parser instead of {@code stylesheet()}).
+     *
+     * @return the stylesheet every parsed statement is added to, callers can remove statements they have handled
+     */
+    public Stylesheet beginStatements() {
+        Stylesheet statements = new Stylesheet();
+        currentContainer.push(statements);
+        return statements;
+    }
+
     public AST getAST() {
         return ast;
     }
-}
\ No newline at end of file
+}
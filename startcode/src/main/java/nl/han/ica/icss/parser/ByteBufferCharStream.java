@@ -0,0 +1,155 @@
+package nl.han.ica.icss.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An Antlr {@link CharStream} that reads ASCII characters straight from a {@link ByteBuffer}, one byte per character.
+ * <p>
+ * Used with a memory-mapped file the lexer works on the file contents directly: the input is never decoded
+ * into a String and never copied into a code point array. Only the text of each token is copied when it is requested.
+ */
+public class ByteBufferCharStream implements CharStream {
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final String sourceName;
+
+    //Index of the next character to consume
+    private int position = 0;
+
+    //Reused for copying token text out of the buffer, tokens are short
+    private byte[] scratch = new byte[64];
+
+    public ByteBufferCharStream(ByteBuffer buffer, String sourceName) {
+        this.buffer = buffer;
+        this.size = buffer.limit();
+        this.sourceName = sourceName;
+    }
+
+    /**
+     * Opens a source file for lexing. ASCII files (every valid ICSS file) are memory-mapped, files that contain
+     * other UTF-8 characters are decoded as usual, so error messages show the actual characters.
+     *
+     * @param path The file to read.
+     * @return A char stream over the contents of the file.
+     */
+    public static CharStream fromPath(Path path) throws IOException {
+        return fromBuffer(map(path), path.toString());
+    }
+
+    /**
+     * Memory-maps a whole source file, to be read by {@link #fromBuffer(ByteBuffer, String)}.
+     */
+    public static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is larger than 2 GB");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Opens the bytes of a source file for lexing, like {@link #fromPath(Path)} but without reading the file again.
+     *
+     * @param buffer     The contents of the file, read from position 0 up to the limit.
+     * @param sourceName The name of the source, for error messages.
+     */
+    public static CharStream fromBuffer(ByteBuffer buffer, String sourceName) {
+        if (!isAscii(buffer)) {
+            return CharStreams.fromString(StandardCharsets.UTF_8.decode(buffer.duplicate()).toString(), sourceName);
+        }
+        return new ByteBufferCharStream(buffer, sourceName);
+    }
+
+    private static boolean isAscii(ByteBuffer buffer) {
+        for (int i = 0; i < buffer.limit(); i++) {
+            if (buffer.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.max(interval.a, 0);
+        int stop = Math.min(interval.b, size - 1);
+        if (start > stop) {
+            return "";
+        }
+        int length = stop - start + 1;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        //the contents are checked to be ASCII, for which Latin-1 is the cheapest identical decoding
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public void consume() {
+        if (position >= size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        position++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0) {
+            return 0; // undefined
+        }
+        int index = i > 0 ? position + i - 1 : position + i;
+        if (index < 0 || index >= size) {
+            return IntStream.EOF;
+        }
+        return buffer.get(index) & 0xFF;
+    }
+
+    //The whole buffer is always available, so marks are not needed
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return position;
+    }
+
+    @Override
+    public void seek(int index) {
+        position = Math.min(index, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size - 1));
+    }
+}
@@ -0,0 +1,257 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.ast.Stylesheet;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the AST of a document up to date while it is edited, by re-parsing only the top-level statements
+ * (stylerules and variable assignments) that overlap an edit. All other statement nodes are reused as-is.
+ * <p>
+ * Reused nodes are shared between the old and the new AST, so the AST must not be transformed in place between
+ * edits, use {@link nl.han.ica.icss.transforms.PersistentEvaluator}. The bindings and types a check writes into
+ * the nodes stay valid for {@link nl.han.ica.icss.checker.IncrementalChecker}, which checks only the changed
+ * statements again. Whenever the edited part cannot be parsed on its own, the whole document is parsed again,
+ * so syntax errors are the same as with a full parse.
+ */
+public class IncrementalParser extends BaseErrorListener {
+
+    private String text = "";
+    private AST ast = new AST();
+    private final List<String> errors = new ArrayList<>();
+
+    //Source range [start, end) of each top-level statement, in the same order as the stylesheet body
+    private int[] starts = new int[0];
+    private int[] ends = new int[0];
+    //False after a parse that was not a clean region: the ranges do not match the AST and the next edit parses everything
+    private boolean incremental = false;
+
+    //Number of statements parsed by the last parse or edit, where they start, and how many they replaced
+    private int reparsedStatements;
+    private int firstReparsedStatement;
+    private int replacedStatements;
+
+    public AST getAST() {
+        return ast;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public int getReparsedStatements() {
+        return reparsedStatements;
+    }
+
+    /**
+     * @return The position in the stylesheet of the first statement parsed by the last parse or edit.
+     */
+    public int getFirstReparsedStatement() {
+        return firstReparsedStatement;
+    }
+
+    /**
+     * @return How many statements of the previous AST the last parse or edit replaced, starting at
+     * {@link #getFirstReparsedStatement()}. All others are shared with the new AST.
+     */
+    public int getReplacedStatements() {
+        return replacedStatements;
+    }
+
+    /**
+     * Parses a complete document.
+     *
+     * @return true if the document has no syntax errors
+     */
+    public boolean parse(String text) {
+        this.text = text;
+        errors.clear();
+        firstReparsedStatement = 0;
+        replacedStatements = ast.root.body.size();
+
+        Region region = parseRegion(text, 0);
+        if (region == null) {
+            //Parse once more with error recovery to get the usual (partial) AST
+            ParseTree tree = newParser(text, this).stylesheet();
+            ASTListener listener = new ASTListener();
+            try {
+                new ParseTreeWalker().walk(listener, tree);
+                ast = listener.getAST();
+            } catch (RuntimeException e) {
+                ast = new AST();
+            }
+            //without syntax errors only input after the last statement was left, which a full parse ignores too
+            incremental = false;
+            reparsedStatements = ast.root.body.size();
+            return errors.isEmpty();
+        }
+
+        ast = new AST(new Stylesheet(new ArrayList<>(region.statements)));
+        starts = region.starts;
+        ends = region.ends;
+        incremental = true;
+        reparsedStatements = region.statements.size();
+        return true;
+    }
+
+    /**
+     * Applies an edit to the document and updates the AST.
+     *
+     * @param offset         Position of the edit in the current text.
+     * @param removedLength  Number of characters removed at the offset.
+     * @param insertedText   Text inserted at the offset.
+     * @return true if the new document has no syntax errors
+     */
+    public boolean applyEdit(int offset, int removedLength, String insertedText) {
+        String newText = text.substring(0, offset) + insertedText + text.substring(offset + removedLength);
+        int count = starts.length;
+        if (!incremental || count == 0) {
+            return parse(newText);
+        }
+
+        //Statements touching the edited range [offset, offset + removedLength] are parsed again
+        int first = firstEndingAtOrAfter(offset);
+        int last = lastStartingAtOrBefore(offset + removedLength);
+
+        //Re-parse from the end of the last untouched statement before, up to the start of the first one after
+        int regionStart = first > 0 ? ends[first - 1] : 0;
+        int regionEnd = last < count - 1 ? starts[last + 1] : text.length();
+        int delta = insertedText.length() - removedLength;
+
+        String regionText = newText.substring(regionStart, regionEnd + delta);
+        Region region = regionText.isBlank() ? Region.EMPTY : parseRegion(regionText, regionStart);
+        if (region == null || (region.statements.isEmpty() && first == 0 && last == count - 1)) {
+            //Could not be parsed on its own (or nothing is left): report errors like a full parse would
+            return parse(newText);
+        }
+
+        //Splice: untouched statements before, new statements, untouched (shifted) statements after
+        int removed = Math.max(last - first + 1, 0);
+        int added = region.statements.size();
+        int newCount = count - removed + added;
+        int[] newStarts = new int[newCount];
+        int[] newEnds = new int[newCount];
+        ArrayList<ASTNode> body = new ArrayList<>(newCount);
+        List<ASTNode> oldBody = ast.root.body;
+
+        System.arraycopy(starts, 0, newStarts, 0, first);
+        System.arraycopy(ends, 0, newEnds, 0, first);
+        body.addAll(oldBody.subList(0, first));
+
+        System.arraycopy(region.starts, 0, newStarts, first, added);
+        System.arraycopy(region.ends, 0, newEnds, first, added);
+        body.addAll(region.statements);
+
+        int after = first + removed;
+        for (int i = after; i < count; i++) {
+            newStarts[i - after + first + added] = starts[i] + delta;
+            newEnds[i - after + first + added] = ends[i] + delta;
+        }
+        body.addAll(oldBody.subList(after, count));
+
+        text = newText;
+        starts = newStarts;
+        ends = newEnds;
+        ast = new AST(new Stylesheet(body));
+        errors.clear();
+        reparsedStatements = added;
+        firstReparsedStatement = first;
+        replacedStatements = removed;
+        return true;
+    }
+
+    private int firstEndingAtOrAfter(int offset) {
+        int index = Arrays.binarySearch(ends, offset);
+        if (index < 0) {
+            return -index - 1;
+        }
+        //equal ends are impossible, but a statement ending exactly at the offset touches the edit
+        return index;
+    }
+
+    private int lastStartingAtOrBefore(int offset) {
+        int index = Arrays.binarySearch(starts, offset);
+        if (index < 0) {
+            return -index - 2;
+        }
+        return index;
+    }
+
+    /**
+     * Parses a piece of the document that consists of whole top-level statements.
+     *
+     * @param regionText The text of the piece.
+     * @param offset     Position of the piece in the document, added to the statement ranges.
+     * @return the statements with their ranges, or null if the piece has syntax errors
+     */
+    private Region parseRegion(String regionText, int offset) {
+        List<String> regionErrors = new ArrayList<>();
+        BaseErrorListener collector = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                regionErrors.add(msg);
+            }
+        };
+        ICSSParser parser = newParser(regionText, collector);
+        ICSSParser.StylesheetContext tree = parser.stylesheet();
+        if (!regionErrors.isEmpty() || parser.getTokenStream().LA(1) != Token.EOF) {
+            return null;
+        }
+
+        ASTListener listener = new ASTListener();
+        new ParseTreeWalker().walk(listener, tree);
+        List<ASTNode> statements = listener.getAST().root.body;
+
+        int count = tree.getChildCount();
+        Region region = new Region(statements, new int[count], new int[count]);
+        for (int i = 0; i < count; i++) {
+            ParserRuleContext statement = (ParserRuleContext) tree.getChild(i);
+            region.starts[i] = offset + statement.getStart().getStartIndex();
+            region.ends[i] = offset + statement.getStop().getStopIndex() + 1;
+        }
+        return region;
+    }
+
+    private static ICSSParser newParser(String text, ANTLRErrorListener errorListener) {
+        ICSSLexer lexer = new ICSSLexer(CharStreams.fromString(text));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorListener);
+        ICSSParser parser = new ICSSParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(errorListener);
+        return parser;
+    }
+
+    //Catch ANTLR errors
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                            int charPositionInLine, String msg, RecognitionException e) {
+        errors.add("Syntax error: " + msg);
+    }
+
+    private static class Region {
+        private static final Region EMPTY = new Region(new ArrayList<>(), new int[0], new int[0]);
+
+        private final List<ASTNode> statements;
+        private final int[] starts;
+        private final int[] ends;
+
+        private Region(List<ASTNode> statements, int[] starts, int[] ends) {
+            this.statements = statements;
+            this.starts = starts;
+            this.ends = ends;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTReader;
+import nl.han.ica.icss.ast.ASTWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A directory of parsed ASTs in the binary format of {@link ASTWriter}, keyed by the SHA-256 hash of the source.
+ * <p>
+ * Only ASTs of sources without syntax errors are stored, before they are checked or transformed. The cache is
+ * best effort: an entry that cannot be read (for example one written by an older format version) is a miss and
+ * is replaced by the next store, and an entry that cannot be written is skipped. Entries are written to a
+ * temporary file first, so several compilers can share one directory.
+ */
+public class ParseCache {
+
+    private static final String EXTENSION = ".ast";
+
+    private final Path directory;
+
+    public ParseCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return The cache key of a source file: the hex SHA-256 hash of its bytes.
+     */
+    public static String key(Path source) throws IOException {
+        return key(ByteBufferCharStream.map(source));
+    }
+
+    public static String key(ByteBuffer source) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+        digest.update(source.duplicate());
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(Character.forDigit(b >> 4 & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return The cached AST for the key, or null if there is no readable entry.
+     */
+    public AST load(String key) {
+        Path entry = entryFor(key);
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+        try {
+            return ASTReader.read(entry);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the AST of a source that parsed without errors.
+     *
+     * @return true if the entry was written
+     */
+    public boolean store(String key, AST ast) {
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            //the writer buffers itself
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                new ASTWriter(out).write(ast);
+            }
+            Files.move(temporary, entryFor(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    //the temporary file is left behind, the entry itself is untouched
+                }
+            }
+            return false;
+        }
+    }
+
+    private Path entryFor(String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+}
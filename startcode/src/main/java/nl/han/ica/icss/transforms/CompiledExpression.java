@@ -0,0 +1,17 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.datastructures.ScopeFrames;
+import nl.han.ica.icss.ast.Literal;
+
+/**
+ * An expression compiled by {@link ExpressionCompiler}.
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+
+    /**
+     * @param variableValues The values of the variables, in the slots the resolver gave them.
+     * @return The value of the expression.
+     */
+    Literal evaluate(ScopeFrames<Literal> variableValues);
+}
@@ -1,5 +1,9 @@
 package nl.han.ica.icss.transforms;
 
+import nl.han.ica.datastructures.HANStack;
+import nl.han.ica.datastructures.IHANStack;
+import nl.han.ica.datastructures.ScopeFrames;
+import nl.han.ica.icss.ast.ASTVisitor;
 import nl.han.ica.icss.ast.Expression;
 import nl.han.ica.icss.ast.Literal;
 import nl.han.ica.icss.ast.VariableReference;
@@ -10,98 +14,110 @@ import nl.han.ica.icss.ast.operations.AddOperation;
 import nl.han.ica.icss.ast.operations.MultiplyOperation;
 import nl.han.ica.icss.ast.operations.SubtractOperation;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.ListIterator;
+/**
+ * Evaluates expressions to literals. Each node of an expression is visited in post-order with the values of
+ * the operands that are still waiting for their operation as context.
+ */
+public class EvaluateExpressionHelper implements ASTVisitor<Literal, IHANStack<Literal>> {
 
-public class EvaluateExpressionHelper {
-    public Literal evalExpression(Expression expression, LinkedList<HashMap<String, Literal>> variableValues) {
-        if (expression instanceof Literal) {
-            return (Literal) expression;
-        } else if (expression instanceof VariableReference) {
-            assert variableValues.peek() != null;
-            return findValueOfReference((VariableReference) expression, variableValues);
-        } else if (expression instanceof AddOperation) {
-            return evalAddOperation((AddOperation) expression, variableValues);
-        } else if (expression instanceof SubtractOperation) {
-            return evalSubtractOperation((SubtractOperation) expression, variableValues);
-        } else if (expression instanceof MultiplyOperation) {
-            return evalMultiplyOperation((MultiplyOperation) expression, variableValues);
-        } else {
-            return null;
+    //Scopes of the expression that is being evaluated, only set during evalExpression
+    private ScopeFrames<Literal> variableValues;
+
+    public Literal evalExpression(Expression expression, ScopeFrames<Literal> variableValues) {
+        this.variableValues = variableValues;
+        //operands come before their operation, so each operation finds its evaluated operands on top of the stack
+        IHANStack<Literal> values = new HANStack<>();
+        for (Expression current : expression.postOrder()) {
+            values.push(current.accept(this, values));
         }
+        this.variableValues = null;
+        return values.pop();
+    }
+
+    @Override
+    public Literal visitLiteral(Literal literal, IHANStack<Literal> operandValues) {
+        return literal;
     }
 
-    private Literal evalAddOperation(AddOperation operation, LinkedList<HashMap<String, Literal>> variableValues) {
-        Literal left = evalExpression(operation.lhs, variableValues);
-        Literal right = evalExpression(operation.rhs, variableValues);
+    @Override
+    public Literal visitVariableReference(VariableReference variableReference, IHANStack<Literal> operandValues) {
+        return findValueOfReference(variableReference, variableValues);
+    }
+
+    @Override
+    public Literal visitAddOperation(AddOperation operation, IHANStack<Literal> operandValues) {
+        Literal right = operandValues.pop();
+        return evalAddOperation(operation, operandValues.pop(), right);
+    }
 
+    @Override
+    public Literal visitSubtractOperation(SubtractOperation operation, IHANStack<Literal> operandValues) {
+        Literal right = operandValues.pop();
+        return evalSubtractOperation(operation, operandValues.pop(), right);
+    }
+
+    @Override
+    public Literal visitMultiplyOperation(MultiplyOperation operation, IHANStack<Literal> operandValues) {
+        Literal right = operandValues.pop();
+        return evalMultiplyOperation(operation, operandValues.pop(), right);
+    }
+
+    private Literal evalAddOperation(AddOperation operation, Literal left, Literal right) {
         if (left instanceof PixelLiteral && right instanceof PixelLiteral) {
-            return new PixelLiteral(((PixelLiteral) left).value + ((PixelLiteral) right).value);
+            return PixelLiteral.of(((PixelLiteral) left).value + ((PixelLiteral) right).value);
         } else if (left instanceof PercentageLiteral && right instanceof PercentageLiteral) {
-            return new PercentageLiteral(((PercentageLiteral) left).value + ((PercentageLiteral) right).value);
+            return PercentageLiteral.of(((PercentageLiteral) left).value + ((PercentageLiteral) right).value);
         } else if (left instanceof ScalarLiteral && right instanceof ScalarLiteral) {
-            return new ScalarLiteral(((ScalarLiteral) left).value + ((ScalarLiteral) right).value);
+            return ScalarLiteral.of(((ScalarLiteral) left).value + ((ScalarLiteral) right).value);
         } else {
-            operation.setError("Invalid add operation (checker should have caught this)");
-            return null;
+            throw new IllegalStateException("Invalid add operation (checker should have caught this)");
         }
     }
 
-    private Literal evalSubtractOperation(SubtractOperation operation, LinkedList<HashMap<String, Literal>> variableValues) {
-        Literal left = evalExpression(operation.lhs, variableValues);
-        Literal right = evalExpression(operation.rhs, variableValues);
-
+    private Literal evalSubtractOperation(SubtractOperation operation, Literal left, Literal right) {
         if (left instanceof PixelLiteral && right instanceof PixelLiteral) {
-            return new PixelLiteral(((PixelLiteral) left).value - ((PixelLiteral) right).value);
+            return PixelLiteral.of(((PixelLiteral) left).value - ((PixelLiteral) right).value);
         } else if (left instanceof PercentageLiteral && right instanceof PercentageLiteral) {
-            return new PercentageLiteral(((PercentageLiteral) left).value - ((PercentageLiteral) right).value);
+            return PercentageLiteral.of(((PercentageLiteral) left).value - ((PercentageLiteral) right).value);
         } else if (left instanceof ScalarLiteral && right instanceof ScalarLiteral) {
-            return new ScalarLiteral(((ScalarLiteral) left).value - ((ScalarLiteral) right).value);
+            return ScalarLiteral.of(((ScalarLiteral) left).value - ((ScalarLiteral) right).value);
         } else {
-            return null;
+            throw new IllegalStateException("Invalid subtract operation (checker should have caught this)");
         }
     }
 
-    private Literal evalMultiplyOperation(MultiplyOperation operation, LinkedList<HashMap<String, Literal>> variableValues) {
-        Literal left = evalExpression(operation.lhs, variableValues);
-        Literal right = evalExpression(operation.rhs, variableValues);
-
+    private Literal evalMultiplyOperation(MultiplyOperation operation, Literal left, Literal right) {
         // Pixel
         if (left instanceof PixelLiteral && right instanceof ScalarLiteral) {
-            return new PixelLiteral(((PixelLiteral) left).value * ((ScalarLiteral) right).value);
+            return PixelLiteral.of(((PixelLiteral) left).value * ((ScalarLiteral) right).value);
         }
         if (left instanceof ScalarLiteral && right instanceof PixelLiteral) {
-            return new PixelLiteral(((ScalarLiteral) left).value * ((PixelLiteral) right).value);
+            return PixelLiteral.of(((ScalarLiteral) left).value * ((PixelLiteral) right).value);
         }
 
         // Percentage
         if (left instanceof PercentageLiteral && right instanceof ScalarLiteral) {
-            return new PercentageLiteral(((PercentageLiteral) left).value * ((ScalarLiteral) right).value);
+            return PercentageLiteral.of(((PercentageLiteral) left).value * ((ScalarLiteral) right).value);
         }
         if (left instanceof ScalarLiteral && right instanceof PercentageLiteral) {
-            return new PercentageLiteral(((ScalarLiteral) left).value * ((PercentageLiteral) right).value);
+            return PercentageLiteral.of(((ScalarLiteral) left).value * ((PercentageLiteral) right).value);
         }
 
         // Scalar
         if (left instanceof ScalarLiteral && right instanceof ScalarLiteral) {
-            return new ScalarLiteral(((ScalarLiteral) left).value * ((ScalarLiteral) right).value);
+            return ScalarLiteral.of(((ScalarLiteral) left).value * ((ScalarLiteral) right).value);
         } else {
-            operation.setError("Invalid multiply operation (checker should have caught this)");
-            return null;
+            throw new IllegalStateException("Invalid multiply operation (checker should have caught this)");
         }
     }
 
-    public Literal findValueOfReference(VariableReference variableReference, LinkedList<HashMap<String, Literal>> variableTypes) {
-        ListIterator<HashMap<String, Literal>> iterator = variableTypes.listIterator(variableTypes.size());
-
-
-        while (iterator.hasPrevious()) {
-            HashMap<String, Literal> currentScope = iterator.previous();
-            if (currentScope.containsKey(variableReference.name)) {
-                return currentScope.get(variableReference.name);
-            }
+    /**
+     * @return The value stored for the declaration the reference is bound to.
+     */
+    public Literal findValueOfReference(VariableReference variableReference, ScopeFrames<Literal> variableValues) {
+        if (!variableReference.isResolved()) {
+            throw new IllegalStateException("Variable " + variableReference.name + " is not resolved (check the AST first)");
         }
-        return null;
+        return variableValues.get(variableReference.scopeLevel, variableReference.slot);
     }
 }
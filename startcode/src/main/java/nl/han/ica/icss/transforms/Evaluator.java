@@ -1,147 +1,169 @@
 package nl.han.ica.icss.transforms;
 
+import nl.han.ica.datastructures.ScopeFrames;
 import nl.han.ica.icss.ast.*;
 import nl.han.ica.icss.ast.literals.BoolLiteral;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
-
-public class Evaluator implements Transform {
-
-    private LinkedList<HashMap<String, Literal>> variableValues;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Evaluates all expressions and if-clauses of the AST. Nodes are visited through {@link ASTVisitor}.
+ * <p>
+ * Bodies with if-clauses are rebuilt in one pass: every if-clause is replaced by the evaluated nodes of its
+ * chosen branch, in the place where it stood. The context of a visit is that new body of the parent, only
+ * if-clauses add to it.
+ * <p>
+ * Variables are looked up by the bindings the {@link nl.han.ica.icss.checker.Resolver} gave their references,
+ * so the AST has to be checked first.
+ */
+public class Evaluator implements Transform, ASTVisitor<Void, List<ASTNode>> {
+
+    private ScopeFrames<Literal> variableValues;
     private final EvaluateExpressionHelper evaluateExpressionHelper = new EvaluateExpressionHelper();
 
     @Override
     public void apply(AST ast) {
-        variableValues = new LinkedList<>();
+        variableValues = new ScopeFrames<>();
 
         //start applying from the root node
         applyNode(ast.root, null);
     }
 
-    private void applyNode(ASTNode node, ASTNode parentNode) {
-        if (node instanceof Stylesheet) {
-            applyStylesheet((Stylesheet) node);
-        } else if (node instanceof Stylerule) {
-            applyStylerule((Stylerule) node);
-        } else if (node instanceof VariableAssignment) {
-            applyVariableAssignment((VariableAssignment) node);
-        } else if (node instanceof VariableReference) {
-            applyVariableReference((VariableReference) node);
-        } else if (node instanceof Declaration) {
-            applyDeclaration((Declaration) node);
-        } else if (node instanceof PropertyName) {
-            applyPropertyName((PropertyName) node);
-        } else if (node instanceof Expression) {
-            applyExpression((Expression) node);
-        } else if (node instanceof IfClause) {
-            applyIfClause((IfClause) node, parentNode);
-        } else if (node instanceof ElseClause) {
-            applyElseClause((ElseClause) node);
-        } else if (node instanceof Selector) {
-            applySelectorNode((Selector) node);
-        } else {
-            System.out.println("Unknown node type: " + node.getClass().getName());
+    /**
+     * Starts evaluating a stylesheet one top-level statement at a time, see {@link #applyStatement(ASTNode)}.
+     * Only the global scope is kept between statements.
+     */
+    public void beginStylesheet() {
+        variableValues = new ScopeFrames<>();
+        variableValues.push();
+    }
+
+    /**
+     * Evaluates a single top-level statement (stylerule or variable assignment) against the global scope.
+     *
+     * @param statement The statement to evaluate.
+     */
+    public void applyStatement(ASTNode statement) {
+        applyNode(statement, null);
+    }
+
+    private void applyNode(ASTNode node, List<ASTNode> resolvedBody) {
+        node.accept(this, resolvedBody);
+    }
+
+    @Override
+    public Void visitNode(ASTNode node, List<ASTNode> resolvedBody) {
+        System.out.println("Unknown node type: " + node.getClass().getName());
+        return null;
+    }
+
+    /**
+     * Evaluates the nodes of a body.
+     *
+     * @return The body itself if it has no if-clauses, otherwise a new list with the if-clauses resolved.
+     */
+    private ArrayList<ASTNode> applyBody(ArrayList<ASTNode> body) {
+        if (!hasIfClause(body)) {
+            //nothing moves, the nodes are evaluated in place
+            for (ASTNode child : body) {
+                applyNode(child, null);
+            }
+            return body;
         }
+        ArrayList<ASTNode> resolved = new ArrayList<>(body.size());
+        applyInto(body, resolved);
+        return resolved;
     }
 
-    private void applySelectorNode(Selector selector) {
-        //skip all selectors
+    /**
+     * Evaluates the nodes and adds them to the resolved body, if-clauses add the nodes of their chosen branch.
+     */
+    private void applyInto(List<ASTNode> nodes, List<ASTNode> resolvedBody) {
+        for (ASTNode node : nodes) {
+            applyNode(node, resolvedBody);
+            if (!(node instanceof IfClause)) {
+                resolvedBody.add(node);
+            }
+        }
     }
 
-    private void applyChildNodes(ASTNode parentNode) {
-        for (ASTNode child : parentNode.getChildren()) {
-            applyNode(child, parentNode);
+    private boolean hasIfClause(List<ASTNode> body) {
+        for (ASTNode node : body) {
+            if (node instanceof IfClause) {
+                return true;
+            }
         }
+        return false;
     }
 
-    private void applyStylesheet(Stylesheet node) {
+    @Override
+    public Void visitStylesheet(Stylesheet node, List<ASTNode> resolvedBody) {
         //add scope
-        variableValues.add(new HashMap<>());
+        variableValues.push();
 
-        applyChildNodes(node);
+        node.body = applyBody(node.body);
+        node.childrenChanged();
 
         //remove scope
-        variableValues.removeLast();
+        variableValues.pop();
+        return null;
     }
 
-    private void applyStylerule(Stylerule node) {
+    @Override
+    public Void visitStylerule(Stylerule node, List<ASTNode> resolvedBody) {
         //add scope
-        variableValues.add(new HashMap<>());
+        variableValues.push();
 
-        applyChildNodes(node);
+        node.body = applyBody(node.body);
+        node.childrenChanged();
 
         //remove scope
-        variableValues.removeLast();
+        variableValues.pop();
+        return null;
     }
 
-    private void applyVariableAssignment(VariableAssignment node) {
+    @Override
+    public Void visitVariableAssignment(VariableAssignment node, List<ASTNode> resolvedBody) {
         //evaluate expression
         node.expression = evaluateExpressionHelper.evalExpression(node.expression, variableValues);
-        //add variable value to the last scope
-        variableValues.getLast().put(node.name.name, (Literal) node.expression);
-
-        applyChildNodes(node);
+        node.childrenChanged();
+        //store the value in the slot the resolver gave the variable
+        variableValues.set(node.name.scopeLevel, node.name.slot, (Literal) node.expression);
+        return null;
     }
 
-    private void applyVariableReference(VariableReference node) {
-        //skip
-    }
-
-    private void applyDeclaration(Declaration node) {
+    @Override
+    public Void visitDeclaration(Declaration node, List<ASTNode> resolvedBody) {
         //evaluate expression
         node.expression = evaluateExpressionHelper.evalExpression(node.expression, variableValues);
-
-        applyChildNodes(node);
-    }
-
-    private void applyPropertyName(PropertyName node) {
-        //skip
-    }
-
-    private void applyExpression(Expression node) {
-        applyChildNodes(node);
+        node.childrenChanged();
+        return null;
     }
 
     //--------------IF support--------------
-    private void applyIfClause(IfClause node, ASTNode parentNode) {
+    @Override
+    public Void visitIfClause(IfClause node, List<ASTNode> resolvedBody) {
         BoolLiteral result = (BoolLiteral) evaluateExpressionHelper.evalExpression(node.conditionalExpression, variableValues);
 
+        List<ASTNode> branch;
         if (result.value) {
-            node.elseClause = null;
+            branch = node.body;
+        } else if (node.elseClause != null) {
+            branch = node.elseClause.body;
         } else {
-            if (node.elseClause != null) {
-                node.body = node.elseClause.body;
-            } else {
-                node.body = new ArrayList<>();
-            }
+            branch = Collections.emptyList();
         }
 
         //add scope
-        variableValues.add(new HashMap<>());
-
-        applyChildNodes(node);
-
-        //add if-clause body to parent
-        for (ASTNode child : node.body) {
-            parentNode.addChild(child);
-        }
-
-        //remove if-clause from parent
-        parentNode.removeChild(node);
-
-        //remove scope
-        variableValues.removeLast();
-    }
-
-    private void applyElseClause(ElseClause node) {
-        //add scope
-        variableValues.add(new HashMap<>());
+        variableValues.push();
 
-        applyChildNodes(node);
+        //the if-clause itself is left out of the resolved body, its chosen branch takes its place
+        applyInto(branch, resolvedBody);
 
         //remove scope
-        variableValues.removeLast();
+        variableValues.pop();
+        return null;
     }
 }
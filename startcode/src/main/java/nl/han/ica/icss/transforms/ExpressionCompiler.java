@@ -0,0 +1,318 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.datastructures.ScopeFrames;
+import nl.han.ica.icss.ast.Expression;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.Operation;
+import nl.han.ica.icss.ast.VariableReference;
+import nl.han.ica.icss.ast.literals.NumberLiteral;
+import nl.han.ica.icss.ast.literals.PercentageLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.MultiplyOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.types.ExpressionType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles checked expressions into closures, so evaluating them again is a few direct calls without type tests.
+ * <p>
+ * The checker stored the type of each expression on its node, so the unit of every operand is known when
+ * compiling. Numbers are computed as plain ints by closures made for their operator, and only the top of an expression
+ * makes a literal of its unit. Parts without variables are folded into constants.
+ * <p>
+ * The parser builds each expression as a chain of additions and subtractions whose terms are chains of
+ * multiplications. A chain is compiled to one closure over its operands, so the closures do not nest deeper than
+ * those two levels, however long the chain is.
+ * <p>
+ * The compiled form is kept on the operation node, like the type the checker found, so the expressions of a
+ * stylesheet (and the unchanged ones of an edited version of it) are compiled only once. It is kept with the
+ * structural hash of the operation, so an operation whose operands changed since is compiled again. A variable read
+ * does not depend on the unit of the variable, so a compiled expression stays valid when a check gives its variables
+ * other units, only a new type of the whole expression compiles it again.
+ * <p>
+ * A compiled expression only reads the values it is given, so one AST can be evaluated by several threads at once.
+ * Two threads may both compile the same operation, either result is kept.
+ */
+public class ExpressionCompiler {
+
+    //A compiled operation with the type and structural hash it was compiled for, its fields are final so it can be
+    //shared between threads
+    private static final class Compiled implements CompiledExpression {
+        final ExpressionType type;
+        final int hash;
+        final CompiledExpression expression;
+
+        Compiled(ExpressionType type, int hash, CompiledExpression expression) {
+            this.type = type;
+            this.hash = hash;
+            this.expression = expression;
+        }
+
+        @Override
+        public Literal evaluate(ScopeFrames<Literal> variableValues) {
+            return expression.evaluate(variableValues);
+        }
+    }
+
+    //The value of a pixel, percentage or scalar expression, its unit is known from the type of the expression
+    @FunctionalInterface
+    private interface IntExpression {
+        int evaluate(ScopeFrames<Literal> variableValues);
+    }
+
+    //A value without variables, folded while compiling
+    private static final class IntConstant implements IntExpression {
+        final int value;
+
+        IntConstant(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int evaluate(ScopeFrames<Literal> variableValues) {
+            return value;
+        }
+    }
+
+    /**
+     * Evaluates an expression by its compiled form. Literals and variable references need no compiling.
+     *
+     * @param variableValues The values of the variables, in the slots the resolver gave them.
+     */
+    public Literal evaluate(Expression expression, ScopeFrames<Literal> variableValues) {
+        if (expression instanceof Literal) {
+            return (Literal) expression;
+        }
+        if (expression instanceof VariableReference) {
+            VariableReference reference = resolved(expression);
+            return variableValues.get(reference.scopeLevel, reference.slot);
+        }
+        return compileOperation((Operation) expression).evaluate(variableValues);
+    }
+
+    /**
+     * @return The compiled form of the expression, it is compiled when it is first asked for.
+     * @throws IllegalStateException if the expression was not checked or has errors.
+     */
+    public CompiledExpression compile(Expression expression) {
+        if (expression instanceof Literal) {
+            Literal literal = (Literal) expression;
+            return variableValues -> literal;
+        }
+        if (expression instanceof VariableReference) {
+            VariableReference reference = resolved(expression);
+            int level = reference.scopeLevel;
+            int slot = reference.slot;
+            return variableValues -> variableValues.get(level, slot);
+        }
+        return compileOperation((Operation) expression);
+    }
+
+    private CompiledExpression compileOperation(Operation operation) {
+        CompiledExpression compiled = operation.compiled;
+        //the closure covers the whole chain below the operation, the hash changes with any operand in it
+        int hash = operation.hashCode();
+        if (compiled == null || ((Compiled) compiled).type != operation.type || ((Compiled) compiled).hash != hash) {
+            compiled = new Compiled(operation.type, hash, compileValue(operation));
+            operation.compiled = compiled;
+        }
+        return compiled;
+    }
+
+    private CompiledExpression compileValue(Operation expression) {
+        ExpressionType type = typeOf(expression);
+        IntExpression value = compileSum(expression);
+        if (value instanceof IntConstant) {
+            Literal literal = literal(type, ((IntConstant) value).value, expression);
+            return variableValues -> literal;
+        }
+        switch (type) {
+            case PIXEL:
+                return variableValues -> PixelLiteral.of(value.evaluate(variableValues));
+            case PERCENTAGE:
+                return variableValues -> PercentageLiteral.of(value.evaluate(variableValues));
+            case SCALAR:
+                return variableValues -> ScalarLiteral.of(value.evaluate(variableValues));
+            default:
+                throw invalid(expression);
+        }
+    }
+
+    /**
+     * Compiles a chain of additions and subtractions, with the added and subtracted terms in two lists.
+     */
+    private IntExpression compileSum(Expression expression) {
+        List<IntExpression> added = new ArrayList<>();
+        List<IntExpression> subtracted = new ArrayList<>();
+        int constant = 0;
+
+        //the chain leans to the left, its last operation is at the top
+        Expression current = expression;
+        while (current instanceof AddOperation || current instanceof SubtractOperation) {
+            Operation operation = (Operation) current;
+            IntExpression term = compileProduct(operation.rhs);
+            boolean subtract = operation instanceof SubtractOperation;
+            if (term instanceof IntConstant) {
+                constant += subtract ? -((IntConstant) term).value : ((IntConstant) term).value;
+            } else {
+                (subtract ? subtracted : added).add(term);
+            }
+            current = operation.lhs;
+        }
+        IntExpression first = compileProduct(current);
+        if (first instanceof IntConstant) {
+            constant += ((IntConstant) first).value;
+        } else {
+            added.add(first);
+        }
+        return sum(added, subtracted, constant);
+    }
+
+    private static IntExpression sum(List<IntExpression> added, List<IntExpression> subtracted, int constant) {
+        if (added.size() + subtracted.size() == 0) {
+            return new IntConstant(constant);
+        }
+        if (subtracted.isEmpty() && added.size() == 1) {
+            IntExpression term = added.get(0);
+            return constant == 0 ? term : variableValues -> term.evaluate(variableValues) + constant;
+        }
+        if (added.isEmpty() && subtracted.size() == 1) {
+            IntExpression term = subtracted.get(0);
+            return variableValues -> constant - term.evaluate(variableValues);
+        }
+        if (constant == 0 && added.size() == 2 && subtracted.isEmpty()) {
+            IntExpression left = added.get(1);
+            IntExpression right = added.get(0);
+            return variableValues -> left.evaluate(variableValues) + right.evaluate(variableValues);
+        }
+        if (constant == 0 && added.size() == 1 && subtracted.size() == 1) {
+            IntExpression left = added.get(0);
+            IntExpression right = subtracted.get(0);
+            return variableValues -> left.evaluate(variableValues) - right.evaluate(variableValues);
+        }
+
+        IntExpression[] plus = added.toArray(new IntExpression[0]);
+        IntExpression[] minus = subtracted.toArray(new IntExpression[0]);
+        return variableValues -> {
+            int sum = constant;
+            for (IntExpression term : plus) {
+                sum += term.evaluate(variableValues);
+            }
+            for (IntExpression term : minus) {
+                sum -= term.evaluate(variableValues);
+            }
+            return sum;
+        };
+    }
+
+    /**
+     * Compiles a chain of multiplications.
+     */
+    private IntExpression compileProduct(Expression expression) {
+        List<IntExpression> factors = new ArrayList<>();
+        int constant = 1;
+
+        Expression current = expression;
+        while (current instanceof MultiplyOperation) {
+            Operation operation = (Operation) current;
+            IntExpression factor = compileFactor(operation.rhs);
+            if (factor instanceof IntConstant) {
+                constant *= ((IntConstant) factor).value;
+            } else {
+                factors.add(factor);
+            }
+            current = operation.lhs;
+        }
+        IntExpression first = compileFactor(current);
+        if (first instanceof IntConstant) {
+            constant *= ((IntConstant) first).value;
+        } else {
+            factors.add(first);
+        }
+        return product(factors, constant);
+    }
+
+    private static IntExpression product(List<IntExpression> factors, int constant) {
+        //reading a variable has no side effects, so a zero factor makes the whole product a constant
+        if (factors.isEmpty() || constant == 0) {
+            return new IntConstant(constant);
+        }
+        if (factors.size() == 1) {
+            IntExpression factor = factors.get(0);
+            return constant == 1 ? factor : variableValues -> factor.evaluate(variableValues) * constant;
+        }
+        if (factors.size() == 2 && constant == 1) {
+            IntExpression left = factors.get(1);
+            IntExpression right = factors.get(0);
+            return variableValues -> left.evaluate(variableValues) * right.evaluate(variableValues);
+        }
+
+        IntExpression[] all = factors.toArray(new IntExpression[0]);
+        return variableValues -> {
+            int product = constant;
+            for (IntExpression factor : all) {
+                product *= factor.evaluate(variableValues);
+            }
+            return product;
+        };
+    }
+
+    private IntExpression compileFactor(Expression expression) {
+        if (expression instanceof NumberLiteral) {
+            return new IntConstant(((NumberLiteral) expression).value);
+        } else if (expression instanceof VariableReference) {
+            return compileRead(resolved(expression));
+        } else if (expression instanceof AddOperation || expression instanceof SubtractOperation) {
+            //only in ASTs that were not built by the parser
+            return compileSum(expression);
+        } else {
+            throw invalid(expression);
+        }
+    }
+
+    private static IntExpression compileRead(VariableReference reference) {
+        int level = reference.scopeLevel;
+        int slot = reference.slot;
+        ExpressionType type = typeOf(reference);
+        if (type != ExpressionType.PIXEL && type != ExpressionType.PERCENTAGE && type != ExpressionType.SCALAR) {
+            throw invalid(reference);
+        }
+        return variableValues -> ((NumberLiteral) variableValues.get(level, slot)).value;
+    }
+
+    private static Literal literal(ExpressionType type, int value, Expression expression) {
+        switch (type) {
+            case PIXEL:
+                return PixelLiteral.of(value);
+            case PERCENTAGE:
+                return PercentageLiteral.of(value);
+            case SCALAR:
+                return ScalarLiteral.of(value);
+            default:
+                throw invalid(expression);
+        }
+    }
+
+    private static ExpressionType typeOf(Expression expression) {
+        if (expression.type == null) {
+            throw new IllegalStateException(expression.getNodeLabel() + " has no type (check the AST first)");
+        }
+        return expression.type;
+    }
+
+    private static VariableReference resolved(Expression expression) {
+        VariableReference reference = (VariableReference) expression;
+        if (!reference.isResolved()) {
+            throw new IllegalStateException("Variable " + reference.name + " is not resolved (check the AST first)");
+        }
+        return reference;
+    }
+
+    private static IllegalStateException invalid(Expression expression) {
+        return new IllegalStateException("Invalid " + expression.getNodeLabel() + " (checker should have caught this)");
+    }
+}
@@ -0,0 +1,172 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.datastructures.ScopeFrames;
+import nl.han.ica.icss.ast.*;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates all expressions and if-clauses like {@link Evaluator}, but returns a new AST instead of changing
+ * the given one. Nodes that the evaluation does not change (selectors, property names, declarations and rules
+ * whose values are already literals) are shared between the old and the new AST, only the nodes above a change
+ * are new.
+ * <p>
+ * Because the input is only read, one checked AST can be evaluated and generated by several threads at once,
+ * each with its own PersistentEvaluator and {@link nl.han.ica.icss.generator.Generator}. Neither the input nor
+ * the result may be changed in place afterwards, they share nodes.
+ * <p>
+ * Nodes are visited through {@link ASTVisitor}, with the new body of the parent as context: each node adds its
+ * evaluated form to it, an if-clause adds the evaluated nodes of the chosen branch. Like {@link Evaluator} it
+ * needs a checked AST, whose variable references are bound.
+ * <p>
+ * Expressions are evaluated by their compiled form, see {@link ExpressionCompiler}. The compiled forms stay on the
+ * nodes, so evaluating the same AST (or a new version that shares its nodes) again does not compile them again.
+ */
+public class PersistentEvaluator implements ASTVisitor<Void, List<ASTNode>> {
+
+    private ScopeFrames<Literal> variableValues;
+    //Values that replace those of global variable assignments, by variable name
+    private Map<String, ? extends Literal> globalValues;
+    private final ExpressionCompiler expressionCompiler = new ExpressionCompiler();
+
+    /**
+     * @return The evaluated AST, the given AST is not changed.
+     */
+    public AST evaluate(AST ast) {
+        return evaluate(ast, Collections.emptyMap());
+    }
+
+    /**
+     * Evaluates the AST with other values for some of its global variables. The given values are not checked,
+     * each must have the type of the variable it replaces.
+     *
+     * @param globalValues Values by variable name, they replace the values of the global assignments of those names.
+     * @return The evaluated AST, the given AST is not changed.
+     */
+    public AST evaluate(AST ast, Map<String, ? extends Literal> globalValues) {
+        this.variableValues = new ScopeFrames<>();
+        this.globalValues = globalValues;
+        List<ASTNode> result = new ArrayList<>(1);
+        ast.root.accept(this, result);
+        this.globalValues = null;
+        return new AST((Stylesheet) result.get(0));
+    }
+
+    /**
+     * Evaluates the children of a node into a new list.
+     *
+     * @return The new children, or null if they are the same as the old ones.
+     */
+    private ArrayList<ASTNode> evaluateBody(List<ASTNode> body) {
+        ArrayList<ASTNode> evaluated = new ArrayList<>(body.size());
+        for (ASTNode child : body) {
+            child.accept(this, evaluated);
+        }
+        return sameNodes(body, evaluated) ? null : evaluated;
+    }
+
+    private static boolean sameNodes(List<ASTNode> nodes, List<ASTNode> others) {
+        if (nodes.size() != others.size()) {
+            return false;
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i) != others.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Void visitStylesheet(Stylesheet node, List<ASTNode> parentBody) {
+        //add scope
+        variableValues.push();
+
+        ArrayList<ASTNode> body = evaluateBody(node.body);
+        parentBody.add(body == null ? node : new Stylesheet(body));
+
+        //remove scope
+        variableValues.pop();
+        return null;
+    }
+
+    @Override
+    public Void visitStylerule(Stylerule node, List<ASTNode> parentBody) {
+        //add scope
+        variableValues.push();
+
+        ArrayList<ASTNode> body = evaluateBody(node.body);
+        if (body == null) {
+            parentBody.add(node);
+        } else {
+            Stylerule stylerule = new Stylerule();
+            stylerule.selectors = new ArrayList<>(node.selectors);
+            stylerule.body = body;
+            parentBody.add(stylerule);
+        }
+
+        //remove scope
+        variableValues.pop();
+        return null;
+    }
+
+    @Override
+    public Void visitVariableAssignment(VariableAssignment node, List<ASTNode> parentBody) {
+        Literal value = node.name.scopeLevel == 0 ? globalValues.get(node.name.name) : null;
+        if (value == null) {
+            value = expressionCompiler.evaluate(node.expression, variableValues);
+        }
+        //store the value in the slot the resolver gave the variable
+        variableValues.set(node.name.scopeLevel, node.name.slot, value);
+
+        if (value == node.expression) {
+            parentBody.add(node);
+        } else {
+            parentBody.add(new VariableAssignment().addChild(node.name).addChild(value));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitDeclaration(Declaration node, List<ASTNode> parentBody) {
+        Literal value = expressionCompiler.evaluate(node.expression, variableValues);
+
+        if (value == node.expression) {
+            parentBody.add(node);
+        } else {
+            parentBody.add(new Declaration().addChild(node.property).addChild(value));
+        }
+        return null;
+    }
+
+    //--------------IF support--------------
+    @Override
+    public Void visitIfClause(IfClause node, List<ASTNode> parentBody) {
+        BoolLiteral result = (BoolLiteral) expressionCompiler.evaluate(node.conditionalExpression, variableValues);
+
+        List<ASTNode> branch;
+        if (result.value) {
+            branch = node.body;
+        } else if (node.elseClause != null) {
+            branch = node.elseClause.body;
+        } else {
+            branch = Collections.emptyList();
+        }
+
+        //add scope
+        variableValues.push();
+
+        //the if-clause is replaced by the evaluated nodes of the chosen branch
+        for (ASTNode child : branch) {
+            child.accept(this, parentBody);
+        }
+
+        //remove scope
+        variableValues.pop();
+        return null;
+    }
+}
@@ -0,0 +1,66 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PercentageLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledStylesheetTest {
+
+	//if-clause bodies take the place of the if-clause
+	static final String LEVEL3_CSS = "p {\n  background-color: #ffffff;\n  width: 500px;\n  color: #124532;\n"
+			+ "  background-color: #000000;\n  height: 20px;\n}\n\na {\n  color: #ff0000;\n}\n\n"
+			+ "#menu {\n  width: 520px;\n}\n\n.menu {\n  color: #000000;\n  background-color: #ff0000;\n}\n\n";
+
+	String readTestFile(String resource) throws IOException {
+		ClassLoader classLoader = this.getClass().getClassLoader();
+		try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	String compile(String input) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		assertTrue(pipeline.check(), input);
+		pipeline.transform();
+		return pipeline.generate();
+	}
+
+	@Test
+	void testCompiledStylesheetRendersOverrides() throws IOException {
+		String text = readTestFile("level3.icss");
+		CompiledStylesheet stylesheet = CompiledStylesheet.compile(text);
+		assertEquals(ExpressionType.COLOR, stylesheet.getVariables().get("LinkColor"));
+		assertEquals(LEVEL3_CSS, stylesheet.render());
+
+		Map<String, Literal> overrides = Map.of("LinkColor", ColorLiteral.of("#00ff00"),
+				"ParWidth", PixelLiteral.of(300), "AdjustColor", BoolLiteral.of(false));
+		String expected = compile(text.replace("#ff0000", "#00ff00").replace("500px", "300px")
+				.replace("AdjustColor := TRUE", "AdjustColor := FALSE"));
+		//renders on several threads at once share the compiled stylesheet
+		List<String> outputs = IntStream.range(0, 8).parallel()
+				.mapToObj(i -> stylesheet.render(i % 2 == 0 ? overrides : Map.of()))
+				.collect(Collectors.toList());
+		for (int i = 0; i < outputs.size(); i++) {
+			assertEquals(i % 2 == 0 ? expected : LEVEL3_CSS, outputs.get(i));
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> stylesheet.render(Map.of("ParWidth", PercentageLiteral.of(50))));
+		assertThrows(IllegalArgumentException.class, () -> stylesheet.render(Map.of("Unknown", PixelLiteral.of(1))));
+		assertThrows(IllegalArgumentException.class, () -> CompiledStylesheet.compile("p { width: Unknown; }"));
+	}
+}
@@ -0,0 +1,285 @@
+package nl.han.ica.icss;
+
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.Diagnostic;
+import nl.han.ica.icss.checker.Diagnostics;
+import nl.han.ica.icss.parser.Fixtures;
+import nl.han.ica.icss.parser.ParseCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineTest {
+
+	//if-clause bodies take the place of the if-clause
+	static final String LEVEL3_CSS = "p {\n  background-color: #ffffff;\n  width: 500px;\n  color: #124532;\n"
+			+ "  background-color: #000000;\n  height: 20px;\n}\n\na {\n  color: #ff0000;\n}\n\n"
+			+ "#menu {\n  width: 520px;\n}\n\n.menu {\n  color: #000000;\n  background-color: #ff0000;\n}\n\n";
+
+	String readTestFile(String resource) throws IOException {
+		ClassLoader classLoader = this.getClass().getClassLoader();
+		try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	String compile(String input) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		assertTrue(pipeline.check(), input);
+		pipeline.transform();
+		return pipeline.generate();
+	}
+
+	Pipeline twoStagePipeline() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setTwoStageParsing(true);
+		return pipeline;
+	}
+
+	@Test
+	void testTwoStageParseLevel3() throws IOException {
+		Pipeline pipeline = twoStagePipeline();
+		pipeline.parseString(readTestFile("level3.icss"));
+
+		assertTrue(pipeline.isParsed());
+		assertEquals(Fixtures.uncheckedLevel3(), pipeline.getAST());
+	}
+
+	@Test
+	void testSinglePassParseMatchesFixtures() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setSinglePassParsing(true);
+
+		pipeline.parseString(readTestFile("level0.icss"));
+		assertEquals(Fixtures.uncheckedLevel0(), pipeline.getAST());
+		pipeline.parseString(readTestFile("level1.icss"));
+		assertEquals(Fixtures.uncheckedLevel1(), pipeline.getAST());
+		pipeline.parseString(readTestFile("level2.icss"));
+		assertEquals(Fixtures.uncheckedLevel2(), pipeline.getAST());
+		pipeline.parseString(readTestFile("level3.icss"));
+		assertEquals(Fixtures.uncheckedLevel3(), pipeline.getAST());
+	}
+
+	@Test
+	void testStreamingCompileMatchesPipeline() throws IOException {
+		for (String level : new String[]{"level0.icss", "level1.icss", "level2.icss", "level3.icss"}) {
+			String input = readTestFile(level);
+
+			Pipeline pipeline = new Pipeline();
+			pipeline.parseString(input);
+			assertTrue(pipeline.check());
+			pipeline.transform();
+
+			StringWriter output = new StringWriter();
+			StreamingCompiler compiler = new StreamingCompiler();
+			assertTrue(compiler.compile(new StringReader(input), output), level);
+			assertEquals(pipeline.generate(), output.toString(), level);
+		}
+	}
+
+	@Test
+	void testStreamingCompileReportsErrors() throws IOException {
+		StreamingCompiler compiler = new StreamingCompiler();
+
+		assertFalse(compiler.compile(new StringReader("p { width: Unknown; }"), new StringWriter()));
+		assertEquals(1, compiler.getErrors().size());
+		assertFalse(compiler.compile(new StringReader("p { width: 10px + #ffffff; }"), new StringWriter()));
+		assertTrue(compiler.getErrors().get(0).startsWith("Syntax error"));
+	}
+
+	@Test
+	void testStreamingCompileStopsWhereAFullParseStops() throws IOException {
+		for (String input : new String[]{"a { color: #ffffff; } }", "", "}"}) {
+			Pipeline pipeline = new Pipeline();
+			pipeline.parseString(input);
+
+			StringWriter output = new StringWriter();
+			StreamingCompiler compiler = new StreamingCompiler();
+			assertEquals(pipeline.isParsed(), compiler.compile(new StringReader(input), output), input);
+			assertEquals(pipeline.getErrors(), compiler.getErrors(), input);
+		}
+
+		//the statements in front of the token that ends the stylesheet are compiled
+		StringWriter output = new StringWriter();
+		assertTrue(new StreamingCompiler().compile(new StringReader("a { color: #ffffff; } }"), output));
+		assertEquals(compile("a { color: #ffffff; }"), output.toString());
+	}
+
+	@Test
+	void testParsePathMatchesParseString() throws IOException, URISyntaxException {
+		Path path = Paths.get(this.getClass().getClassLoader().getResource("level3.icss").toURI());
+
+		Pipeline pipeline = new Pipeline();
+		pipeline.parsePath(path);
+		assertTrue(pipeline.isParsed());
+		assertEquals(Fixtures.uncheckedLevel3(), pipeline.getAST());
+	}
+
+	@Test
+	void testTwoStageParseReportsSameSyntaxErrors() {
+		String input = "p { width: 10px + #ffffff; }\na { color: ; }";
+
+		Pipeline normal = new Pipeline();
+		normal.parseString(input);
+
+		long fallbacks = Pipeline.getFullContextFallbacks();
+		Pipeline twoStage = twoStagePipeline();
+		twoStage.parseString(input);
+
+		assertFalse(twoStage.isParsed());
+		assertEquals(normal.getErrors(), twoStage.getErrors());
+		assertTrue(Pipeline.getFullContextFallbacks() > fallbacks);
+	}
+
+	@Test
+	void testOperatorPrecedence() {
+		assertEquals("p {\n  width: 13px;\n}\n\n", compile("p { width: 2px + 3 * 4px - 1px; }"));
+		assertEquals("p {\n  width: 0px;\n}\n\n", compile("p { width: 10px - 4px - 6px; }"));
+	}
+
+	@Test
+	void testLongOperatorChainsCompile() {
+		StringBuilder input = new StringBuilder("p { width: 0px");
+		for (int i = 0; i < 100_000; i++) {
+			input.append(i % 2 == 0 ? " + 2 * 1px" : " - 1px");
+		}
+		input.append("; }");
+
+		assertEquals("p {\n  width: 50000px;\n}\n\n", compile(input.toString()));
+	}
+
+	@Test
+	void testParseCacheReturnsTheParsedAST(@TempDir Path directory) throws IOException {
+		Path source = directory.resolve("level3.icss");
+		Files.writeString(source, readTestFile("level3.icss"));
+		ParseCache cache = new ParseCache(directory.resolve("cache"));
+
+		Pipeline pipeline = new Pipeline();
+		pipeline.setParseCache(cache);
+		pipeline.parsePath(source);
+		assertNotNull(cache.load(ParseCache.key(source)));
+
+		//the second parse is a cache hit, and compiles like a parse
+		pipeline.parsePath(source);
+		assertTrue(pipeline.isParsed());
+		assertEquals(Fixtures.uncheckedLevel3(), pipeline.getAST());
+		assertTrue(pipeline.check());
+		pipeline.transform();
+		assertEquals(compile(readTestFile("level3.icss")), pipeline.generate());
+
+		//a changed source has another key
+		Files.writeString(source, readTestFile("level2.icss"));
+		assertNull(cache.load(ParseCache.key(source)));
+	}
+
+	@Test
+	void testCheckReportsDiagnosticsByNode() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("Width := 10px;\np {\n\twidth: Width + Height;\n\tsize: 2px;\n\tcolor: #ffffff;\n}\n");
+		assertFalse(pipeline.check());
+
+		Diagnostics diagnostics = pipeline.getDiagnostics();
+		//in the order they were found, operands before their operation
+		assertEquals(List.of("ERROR: Variable Height not declared", "ERROR: Operation between different types",
+				"ERROR: Unknown property size"), pipeline.getErrors());
+		assertEquals(3, diagnostics.size());
+
+		Stylerule rule = (Stylerule) pipeline.getAST().root.body.get(1);
+		Declaration size = (Declaration) rule.body.get(1);
+		Diagnostic diagnostic = diagnostics.get(size.property);
+		assertEquals("unknown-property", diagnostic.code);
+		assertSame(size.property, diagnostic.node);
+		assertTrue(diagnostics.hasError(size.property));
+		assertFalse(diagnostics.hasError(size));
+		assertFalse(diagnostics.hasError(rule.body.get(2)));
+	}
+
+	@Test
+	void testParallelCheckFindsTheSameDiagnostics() {
+		//global assignments between the rules, some of them redeclared, with errors spread over the rules
+		StringBuilder input = new StringBuilder("Size := 1px;\n");
+		for (int i = 0; i < 1000; i++) {
+			if (i % 150 == 0) {
+				input.append("Size := ").append(i).append("%;\n");
+				input.append("Color").append(i).append(" := #00ff00;\n");
+			}
+			input.append(".c").append(i).append(" {\n\twidth: Size + ").append(i % 7 == 0 ? "1px" : "1%").append(";\n");
+			if (i % 97 == 0) {
+				input.append("\tcolor: Color").append(i + 1).append(";\n");
+			}
+			input.append("}\n");
+		}
+
+		Pipeline sequential = new Pipeline();
+		sequential.parseString(input.toString());
+		assertFalse(sequential.check());
+
+		Pipeline parallel = new Pipeline();
+		parallel.setParallelCheck(true);
+		parallel.parseString(input.toString());
+		assertFalse(parallel.check());
+		assertEquals(sequential.getErrors(), parallel.getErrors());
+
+		Checker checker = new Checker();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertEquals(sequential.getErrors().size(), checker.check(parallel.getAST(), pool).size());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void testIncrementalPipelineCompilesEachVersion() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setIncremental(true);
+		String text = readTestFile("level3.icss");
+		for (String version : List.of(text, text.replace("#ff0000", "#00ff00"), text.replace("TRUE", "FALSE"), text)) {
+			pipeline.parseString(version);
+			assertTrue(pipeline.check());
+			pipeline.transform();
+			assertEquals(compile(version), pipeline.generate());
+		}
+	}
+
+	@Test
+	void testIfClauseBodiesTakeTheirPlace() throws IOException {
+		assertEquals(LEVEL3_CSS, compile(readTestFile("level3.icss")));
+
+		String input = "Yes := TRUE;\np {\n\twidth: 1px;\n"
+				+ "\tif[Yes] {\n\t\twidth: 2px;\n\t\tif[FALSE] {\n\t\t\twidth: 3px;\n\t\t} else {\n\t\t\twidth: 4px;\n\t\t}\n\t}\n"
+				+ "\twidth: 5px;\n\tif[FALSE] {\n\t\twidth: 6px;\n\t}\n\twidth: 7px;\n}\n";
+		assertEquals("p {\n  width: 1px;\n  width: 2px;\n  width: 4px;\n  width: 5px;\n  width: 7px;\n}\n\n",
+				compile(input));
+	}
+
+	@Test
+	void testCompiledExpressionsFollowNewVariableValues() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.setIncremental(true);
+		String rule = "p {\n\twidth: W * 2 + 3 * W - 1 * W - Z * 4;\n\theight: 2 * 3 * Z + Z - Z;\n}\n";
+		//the rule is shared by all versions, its compiled expressions are reused while the units stay the same
+		for (String values : List.of("W := 10px;\nZ := 2px;\n", "W := 7px;\nZ := 0px;\n", "W := 5%;\nZ := 1%;\n")) {
+			pipeline.parseString(values + rule);
+			assertTrue(pipeline.check());
+			pipeline.transform();
+			assertEquals(compile(values + rule), pipeline.generate());
+		}
+	}
+}
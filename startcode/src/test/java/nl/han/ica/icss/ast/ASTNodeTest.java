@@ -0,0 +1,112 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.*;
+import nl.han.ica.icss.ast.operations.AddOperation;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.TagSelector;
+import nl.han.ica.icss.parser.Fixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ASTNodeTest {
+
+	void assertIndexedChildrenMatch(ASTNode root) {
+		Deque<ASTNode> pending = new ArrayDeque<>();
+		pending.push(root);
+		while (!pending.isEmpty()) {
+			ASTNode node = pending.pop();
+			List<ASTNode> indexed = new ArrayList<>();
+			for (int i = 0; i < node.getChildCount(); i++) {
+				indexed.add(node.getChild(i));
+			}
+			assertEquals(node.getChildren(), indexed, node.getNodeLabel());
+			assertThrows(IndexOutOfBoundsException.class, () -> node.getChild(node.getChildCount()));
+			indexed.forEach(pending::push);
+		}
+	}
+
+	@Test
+	void testIndexedChildrenMatchGetChildren() {
+		assertIndexedChildrenMatch(Fixtures.uncheckedLevel3().root);
+		assertIndexedChildrenMatch(new Declaration());
+		assertIndexedChildrenMatch(new IfClause());
+	}
+
+	@Test
+	void testPartialNodesHaveNoNullChildren() {
+		Declaration declaration = new Declaration();
+		declaration.addChild(new PixelLiteral(10));
+		assertEquals(1, declaration.getChildCount());
+		assertEquals(new PixelLiteral(10), declaration.getChild(0));
+
+		IfClause ifClause = new IfClause();
+		ifClause.addChild(declaration);
+		assertEquals(1, ifClause.getChildCount());
+		assertSame(declaration, ifClause.getChild(0));
+	}
+
+	@Test
+	void testLiteralFactoriesShareInstances() {
+		assertSame(PixelLiteral.of(10), PixelLiteral.of("10px"));
+		assertSame(PixelLiteral.of(-5000), PixelLiteral.of(-5000));
+		assertSame(PercentageLiteral.of(100_000), PercentageLiteral.of("100000%"));
+		assertSame(ScalarLiteral.of(2), ScalarLiteral.of("2"));
+		assertSame(ColorLiteral.of("#ffffff"), ColorLiteral.of("#ffffff"));
+		assertSame(BoolLiteral.TRUE, BoolLiteral.of("TRUE"));
+
+		//constructed literals are still equal to the canonical ones
+		assertEquals(PixelLiteral.of(10), new PixelLiteral(10));
+		assertNotEquals(PixelLiteral.of(10), PercentageLiteral.of(10));
+	}
+
+	@Test
+	void testStructuralHashFollowsChanges() {
+		AST ast = Fixtures.uncheckedLevel3();
+		AST other = Fixtures.uncheckedLevel3();
+		assertEquals(ast.root.hashCode(), other.root.hashCode());
+		assertEquals(ast, other);
+
+		//a change deep in the tree is seen by the root once the hash is cached
+		Stylerule rule = (Stylerule) ast.root.body.get(4);
+		Declaration declaration = (Declaration) rule.body.get(0);
+		declaration.addChild(PixelLiteral.of(1));
+		assertNotEquals(other.root.hashCode(), ast.root.hashCode());
+		assertNotEquals(other, ast);
+
+		rule.removeChild(declaration);
+		((Stylerule) other.root.body.get(4)).removeChild(other.root.body.get(4).getChild(1));
+		assertEquals(other.root.hashCode(), ast.root.hashCode());
+		assertEquals(other, ast);
+	}
+
+	@Test
+	void testSharedSubtreeChangesAreSeenByEveryRoot() {
+		Stylerule rule = (Stylerule) new Stylerule().addChild(new TagSelector("p"));
+		ASTNode first = new Stylesheet().addChild(rule);
+		ASTNode second = new Stylesheet().addChild(rule);
+		assertEquals(first.hashCode(), second.hashCode());
+
+		rule.addChild(new Declaration("width").addChild(PixelLiteral.of(1)));
+		ASTNode expected = new Stylesheet().addChild(new Stylerule().addChild(new TagSelector("p"))
+				.addChild(new Declaration("width").addChild(PixelLiteral.of(1))));
+		assertEquals(expected.hashCode(), first.hashCode());
+		assertEquals(expected, first);
+		assertEquals(expected.hashCode(), second.hashCode());
+		assertEquals(expected, second);
+	}
+
+	@Test
+	void testEqualsComparesNodeTypesAndAttributes() {
+		assertNotEquals(new AddOperation().addChild(PixelLiteral.of(1)).addChild(PixelLiteral.of(2)),
+				new SubtractOperation().addChild(PixelLiteral.of(1)).addChild(PixelLiteral.of(2)));
+		assertNotEquals(new PropertyName("width"), new PropertyName("height"));
+		assertEquals(new Declaration("width").addChild(PixelLiteral.of(1)),
+				new Declaration("width").addChild(new PixelLiteral(1)));
+	}
+}
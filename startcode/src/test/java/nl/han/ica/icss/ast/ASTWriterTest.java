@@ -0,0 +1,62 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import nl.han.ica.icss.ast.operations.SubtractOperation;
+import nl.han.ica.icss.ast.selectors.ClassSelector;
+import nl.han.ica.icss.parser.Fixtures;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ASTWriterTest {
+
+	byte[] write(AST ast) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ASTWriter(out).write(ast);
+		return out.toByteArray();
+	}
+
+	AST read(byte[] bytes) throws IOException {
+		return new ASTReader(ByteBuffer.wrap(bytes)).read();
+	}
+
+	@Test
+	void testRoundTripFixtures() throws IOException {
+		for (AST ast : new AST[]{Fixtures.uncheckedLevel0(), Fixtures.uncheckedLevel1(),
+				Fixtures.uncheckedLevel2(), Fixtures.uncheckedLevel3()}) {
+			assertEquals(ast, read(write(ast)));
+		}
+	}
+
+	@Test
+	void testRoundTripValuesAndSymbols() throws IOException {
+		Stylesheet stylesheet = new Stylesheet();
+		stylesheet.addChild(new Stylerule()
+				.addChild(new ClassSelector(".grün"))
+				.addChild(new Declaration("width")
+						.addChild(new SubtractOperation()
+								.addChild(PixelLiteral.of(-1_000_000))
+								.addChild(ScalarLiteral.of(Integer.MIN_VALUE)))));
+		AST ast = new AST(stylesheet);
+
+		assertEquals(ast, read(write(ast)));
+	}
+
+	@Test
+	void testDamagedDataIsRejected() throws IOException {
+		byte[] bytes = write(Fixtures.uncheckedLevel3());
+
+		assertThrows(IOException.class, () -> read(Arrays.copyOf(bytes, bytes.length - 1)));
+		assertThrows(IOException.class, () -> read(Arrays.copyOf(bytes, bytes.length + 1)));
+
+		byte[] otherVersion = bytes.clone();
+		otherVersion[ASTWriter.MAGIC.length] = ASTWriter.VERSION + 1;
+		assertThrows(IOException.class, () -> read(otherVersion));
+	}
+}
@@ -0,0 +1,73 @@
+package nl.han.ica.icss.ast;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.Fixtures;
+import nl.han.ica.icss.transforms.Evaluator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatASTTest {
+
+	String readTestFile(String resource) throws IOException {
+		ClassLoader classLoader = this.getClass().getClassLoader();
+		try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	void testRoundTripFixtures() {
+		for (AST ast : new AST[]{Fixtures.uncheckedLevel0(), Fixtures.uncheckedLevel1(),
+				Fixtures.uncheckedLevel2(), Fixtures.uncheckedLevel3()}) {
+			assertEquals(ast, FlatAST.fromAST(ast).toAST());
+		}
+	}
+
+	@Test
+	void testNodeTables() {
+		FlatAST flat = FlatAST.fromAST(Fixtures.uncheckedLevel0());
+
+		//p { background-color: #ffffff; width: 500px; }
+		int rule = flat.firstChild(FlatAST.ROOT);
+		assertEquals(NodeKind.STYLERULE, flat.kind(rule));
+		int selector = flat.firstChild(rule);
+		assertEquals(NodeKind.TAG_SELECTOR, flat.kind(selector));
+		assertEquals("p", flat.symbol(selector));
+
+		int declaration = flat.nextSibling(flat.nextSibling(selector));
+		int value = flat.nextSibling(flat.firstChild(declaration));
+		assertEquals(NodeKind.PIXEL_LITERAL, flat.kind(value));
+		assertEquals(500, flat.value(value));
+		assertEquals(FlatAST.NONE, flat.nextSibling(value));
+	}
+
+	@Test
+	void testCompileStatementsFromFlatAST() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(readTestFile("level3.icss"));
+		FlatAST flat = FlatAST.fromAST(pipeline.getAST());
+		assertTrue(pipeline.check());
+		pipeline.transform();
+
+		Checker checker = new Checker();
+		Evaluator evaluator = new Evaluator();
+		Generator generator = new Generator();
+		checker.beginStylesheet();
+		evaluator.beginStylesheet();
+		StringBuilder css = new StringBuilder();
+		for (int statement = flat.firstChild(FlatAST.ROOT); statement != FlatAST.NONE; statement = flat.nextSibling(statement)) {
+			ASTNode node = flat.toNode(statement);
+			checker.checkStatement(node);
+			evaluator.applyStatement(node);
+			css.append(generator.generateStatement(node));
+		}
+		assertEquals(pipeline.generate(), css.toString());
+	}
+}
@@ -0,0 +1,58 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reports the bytes allocated by parsing and by checking plus transforming the benchmark corpus,
+ * and the heap retained by the AST after each step.
+ * <p>
+ * Needs a JVM that supports {@code com.sun.management.ThreadMXBean}. Arguments: number of rules (default 100000).
+ */
+public class AllocationBenchmark {
+
+    public static void main(String[] args) {
+        int rules = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        String input = BenchmarkCorpus.stylesheet(rules);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        //warm-up
+        for (int i = 0; i < 3; i++) {
+            compile(input);
+        }
+
+        long base = usedMemory();
+        Pipeline pipeline = new Pipeline();
+        long start = threads.getThreadAllocatedBytes(thread);
+        pipeline.parseString(input);
+        long parsed = threads.getThreadAllocatedBytes(thread);
+        long parsedHeap = usedMemory() - base;
+
+        long beforeTransform = threads.getThreadAllocatedBytes(thread);
+        pipeline.check();
+        pipeline.transform();
+        long transformed = threads.getThreadAllocatedBytes(thread);
+        long transformedHeap = usedMemory() - base;
+
+        System.out.println("rules\tparse allocated(MB)\tcheck+transform allocated(MB)\tAST after parse(MB)\tAST after transform(MB)");
+        System.out.println(rules + "\t" + (parsed - start) / 1_000_000 + "\t" + (transformed - beforeTransform) / 1_000_000
+                + "\t" + parsedHeap / 1_000_000 + "\t" + transformedHeap / 1_000_000);
+    }
+
+    private static void compile(String input) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(input);
+        pipeline.check();
+        pipeline.transform();
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,70 @@
+package nl.han.ica.icss.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates large, valid ICSS inputs for the benchmarks in this package.
+ */
+public class BenchmarkCorpus {
+
+    private static final String HEADER = "BaseWidth := 10px;\nLinkColor := #ff0000;\nUseLinkColor := TRUE;\n";
+
+    /**
+     * @param rule Sequence number of the rule, used to vary selectors and values.
+     * @return One stylerule of roughly 150 characters.
+     */
+    public static String rule(int rule) {
+        return ".c" + rule + " {\n"
+                + "\twidth: BaseWidth + " + (rule % 500) + "px * 2;\n"
+                + "\theight: " + (rule % 100) + "%;\n"
+                + "\tif[UseLinkColor] {\n\t\tcolor: LinkColor;\n\t} else {\n\t\tcolor: #00ff00;\n\t}\n"
+                + "}\n";
+    }
+
+    public static String stylesheet(int rules) {
+        StringBuilder builder = new StringBuilder(HEADER);
+        for (int i = 0; i < rules; i++) {
+            builder.append(rule(i));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes a stylesheet of at least the given size to a temporary file.
+     */
+    public static Path writeStylesheet(long bytes) throws IOException {
+        Path file = Files.createTempFile("icss-bench-", ".icss");
+        file.toFile().deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            writer.write(HEADER);
+            long written = HEADER.length();
+            for (int i = 0; written < bytes; i++) {
+                String rule = rule(i);
+                writer.write(rule);
+                written += rule.length();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Runs the task a few times and returns the fastest time in milliseconds.
+     */
+    public static long bestOf(int runs, ThrowingRunnable task) throws Exception {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000;
+    }
+
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,60 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+
+/**
+ * Compares two separately parsed copies of the same large stylesheet, and each of them with a copy in which
+ * one value differs. The first comparison of a tree also computes its hashes, later comparisons reuse them.
+ * <p>
+ * Arguments: number of rules (default 20000) and number of measured runs (default 20).
+ */
+public class EqualityBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rules = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        String input = BenchmarkCorpus.stylesheet(rules);
+        //one value in the last rule differs
+        int last = input.lastIndexOf("height: ");
+        String changed = input.substring(0, last) + "height: 101%;" + input.substring(input.indexOf(';', last) + 1);
+
+        long first = Long.MAX_VALUE;
+        long equalRun = Long.MAX_VALUE;
+        long differentRun = Long.MAX_VALUE;
+        for (int run = 0; run < runs; run++) {
+            AST ast = parse(input);
+            AST copy = parse(input);
+            AST other = parse(changed);
+
+            long start = System.nanoTime();
+            check(ast.equals(copy));
+            long compared = System.nanoTime();
+            check(ast.equals(copy));
+            long again = System.nanoTime();
+            check(!ast.equals(other));
+            long rejected = System.nanoTime();
+            check(!copy.equals(other));
+            long rejectedAgain = System.nanoTime();
+
+            first = Math.min(first, compared - start);
+            equalRun = Math.min(equalRun, again - compared);
+            differentRun = Math.min(differentRun, rejectedAgain - rejected);
+        }
+
+        System.out.println("rules\tfirst equals(us)\tequals(us)\tnot equals(us)");
+        System.out.println(rules + "\t" + first / 1000 + "\t" + equalRun / 1000 + "\t" + differentRun / 1000);
+    }
+
+    private static AST parse(String input) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(input);
+        return pipeline.getAST();
+    }
+
+    private static void check(boolean result) {
+        if (!result) {
+            throw new IllegalStateException("Unexpected comparison result");
+        }
+    }
+}
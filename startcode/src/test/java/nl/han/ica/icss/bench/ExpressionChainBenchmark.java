@@ -0,0 +1,54 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+
+/**
+ * Compiles a single declaration with a chain of operators of growing length, to show that parsing, checking
+ * and evaluating scale linearly with the chain length (and do not overflow the stack).
+ * <p>
+ * Arguments are chain lengths, the default is 1000 10000 100000 1000000.
+ */
+public class ExpressionChainBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String[] lengths = args.length > 0 ? args : new String[]{"1000", "10000", "100000", "1000000"};
+
+        System.out.println("operators\tparse(ms)\tcheck(ms)\ttransform(ms)\tns/operator");
+        for (String length : lengths) {
+            int operators = Integer.parseInt(length);
+            String input = chain(operators);
+
+            //fastest of three runs for each phase
+            long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+            for (int run = 0; run < 3; run++) {
+                Pipeline pipeline = new Pipeline();
+                long start = System.nanoTime();
+                pipeline.parseString(input);
+                long parsed = System.nanoTime();
+                pipeline.check();
+                long checked = System.nanoTime();
+                pipeline.transform();
+                long transformed = System.nanoTime();
+
+                best[0] = Math.min(best[0], parsed - start);
+                best[1] = Math.min(best[1], checked - parsed);
+                best[2] = Math.min(best[2], transformed - checked);
+            }
+
+            System.out.println(operators + "\t" + best[0] / 1_000_000 + "\t" + best[1] / 1_000_000 + "\t"
+                    + best[2] / 1_000_000 + "\t" + (best[0] + best[1] + best[2]) / operators);
+        }
+    }
+
+    /**
+     * @return A stylesheet with one declaration that mixes additions, subtractions and multiplications,
+     * the number of operators is rounded up to a multiple of three.
+     */
+    private static String chain(int operators) {
+        StringBuilder builder = new StringBuilder("Base := 1px;\np {\n\twidth: Base");
+        for (int written = 0; written < operators; written += 3) {
+            builder.append(" + 2 * Base - 1px");
+        }
+        return builder.append(";\n}\n").toString();
+    }
+}
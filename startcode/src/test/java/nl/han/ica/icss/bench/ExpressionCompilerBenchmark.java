@@ -0,0 +1,74 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.FlatAST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.Diagnostics;
+import nl.han.ica.icss.checker.Resolver;
+import nl.han.ica.icss.transforms.Evaluator;
+import nl.han.ica.icss.transforms.PersistentEvaluator;
+
+/**
+ * Evaluates a checked stylesheet full of expressions again and again: by copying it and interpreting the copy in
+ * place with {@link Evaluator}, and with {@link PersistentEvaluator}, which compiles each expression the first time
+ * (measured on a fresh copy) and evaluates the compiled form kept on the nodes after that.
+ * <p>
+ * Arguments: number of rules (default 20000) and number of measured runs (default 20).
+ */
+public class ExpressionCompilerBenchmark {
+
+    public static void main(String[] args) {
+        int rules = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(stylesheet(rules));
+        pipeline.check();
+        AST checked = pipeline.getAST();
+        FlatAST flat = FlatAST.fromAST(checked);
+
+        long interpreted = Long.MAX_VALUE;
+        long firstEvaluation = Long.MAX_VALUE;
+        long reevaluation = Long.MAX_VALUE;
+        for (int i = 0; i < runs + 10; i++) {
+            AST copy = flat.toAST();
+            //the copy has new references, they need their bindings again
+            new Resolver().resolve(copy, new Diagnostics());
+            AST uncompiled = flat.toAST();
+            new Checker().check(uncompiled);
+
+            long start = System.nanoTime();
+            new Evaluator().apply(copy);
+            long applied = System.nanoTime();
+            new PersistentEvaluator().evaluate(uncompiled);
+            long evaluated = System.nanoTime();
+            new PersistentEvaluator().evaluate(checked);
+            long reevaluated = System.nanoTime();
+
+            //the first runs are warm-up
+            if (i >= 10) {
+                interpreted = Math.min(interpreted, applied - start);
+                firstEvaluation = Math.min(firstEvaluation, evaluated - applied);
+                reevaluation = Math.min(reevaluation, reevaluated - evaluated);
+            }
+        }
+
+        System.out.println("rules\tin place(ms)\tcompile + evaluate(ms)\tcompiled(ms)");
+        System.out.println(rules + "\t" + interpreted / 1_000_000 + "\t" + firstEvaluation / 1_000_000
+                + "\t" + reevaluation / 1_000_000);
+    }
+
+    private static String stylesheet(int rules) {
+        StringBuilder builder = new StringBuilder("Gap := 4px;\nBase := Gap * 4;\nScale := 3;\nShare := 25%;\n");
+        for (int i = 0; i < rules; i++) {
+            builder.append(".c").append(i).append(" {\n")
+                    .append("\twidth: Base * Scale + ").append(i % 500).append("px - Gap * 2;\n")
+                    .append("\theight: Gap + Gap * Scale * 2 - 1px;\n")
+                    .append("\tmargin: ").append(i % 7).append(" * Share - Share + 10%;\n")
+                    .append("\tpadding: Gap * 2 + 3px * 4 - Base;\n")
+                    .append("}\n");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.FlatAST;
+import nl.han.ica.icss.checker.Checker;
+
+/**
+ * Checks stylesheets of variable assignments and declarations whose values are deep expressions (left-nested
+ * chains of operators), to show the cost of typing each expression node.
+ * <p>
+ * Arguments are expression depths, the default is 10 100 1000. Every stylesheet has about a million operators.
+ */
+public class ExpressionTypingBenchmark {
+
+    private static final int OPERATORS = 1_000_000;
+
+    public static void main(String[] args) {
+        String[] depths = args.length > 0 ? args : new String[]{"10", "100", "1000"};
+
+        System.out.println("depth\tcheck(ms)\tns/operator");
+        for (String value : depths) {
+            int depth = Integer.parseInt(value);
+            Pipeline pipeline = new Pipeline();
+            pipeline.parseString(stylesheet(depth));
+            FlatAST flat = FlatAST.fromAST(pipeline.getAST());
+
+            //fastest of five runs after two warm-up runs
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < 7; run++) {
+                AST ast = flat.toAST();
+                long start = System.nanoTime();
+                new Checker().check(ast);
+                long time = System.nanoTime() - start;
+                if (run >= 2) {
+                    best = Math.min(best, time);
+                }
+            }
+            System.out.println(depth + "\t" + best / 1_000_000 + "\t" + best / OPERATORS);
+        }
+    }
+
+    /**
+     * @return Pairs of an assignment and a declaration, each with an expression of the given depth.
+     */
+    private static String stylesheet(int depth) {
+        StringBuilder builder = new StringBuilder("Base := 1px;\n");
+        for (int rule = 0; rule < OPERATORS / (2 * depth); rule++) {
+            builder.append(".c").append(rule).append(" {\n\tValue := ");
+            chain(builder, depth);
+            builder.append(";\n\twidth: Value");
+            chain(builder, depth - 1);
+            builder.append(" + 1px;\n}\n");
+        }
+        return builder.toString();
+    }
+
+    private static void chain(StringBuilder builder, int operators) {
+        builder.append("Base");
+        for (int written = 0; written < operators; written += 2) {
+            builder.append(" + 2 * Base");
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.FlatAST;
+
+/**
+ * Compares the retained heap of the object AST with the {@link FlatAST} of the same stylesheet.
+ * <p>
+ * Arguments are numbers of rules, the default is 10000 100000. Each rule has 21 nodes.
+ */
+public class FlatASTMemoryBenchmark {
+
+    public static void main(String[] args) {
+        String[] sizes = args.length > 0 ? args : new String[]{"10000", "100000"};
+
+        System.out.println("nodes\tobject AST(bytes/node)\tflat AST(bytes/node)\tconversion(ms)");
+        for (String size : sizes) {
+            String input = BenchmarkCorpus.stylesheet(Integer.parseInt(size));
+            long base = usedMemory();
+
+            AST ast = parse(input);
+            long objectBytes = usedMemory() - base;
+
+            long start = System.nanoTime();
+            FlatAST flat = FlatAST.fromAST(ast);
+            flat.trimToSize();
+            long conversion = (System.nanoTime() - start) / 1_000_000;
+
+            ast = null;
+            long flatBytes = usedMemory() - base;
+
+            System.out.println(flat.size() + "\t" + objectBytes / flat.size() + "\t" + flatBytes / flat.size() + "\t" + conversion);
+        }
+    }
+
+    private static AST parse(String input) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(input);
+        return pipeline.getAST();
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,47 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+
+/**
+ * Transforms a single rule with a growing number of if-clauses, half of them true and half with an else branch,
+ * to show that resolving if-clauses scales linearly with the size of the rule body.
+ * <p>
+ * Arguments are numbers of if-clauses, the default is 1000 4000 16000.
+ */
+public class IfClauseBenchmark {
+
+    public static void main(String[] args) {
+        String[] counts = args.length > 0 ? args : new String[]{"1000", "4000", "16000"};
+
+        System.out.println("if-clauses\ttransform(ms)\tns/if-clause");
+        for (String count : counts) {
+            int ifClauses = Integer.parseInt(count);
+            String input = rule(ifClauses);
+
+            //fastest of three runs, only the transform is measured
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < 3; run++) {
+                Pipeline pipeline = new Pipeline();
+                pipeline.parseString(input);
+                pipeline.check();
+                long start = System.nanoTime();
+                pipeline.transform();
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.println(ifClauses + "\t" + best / 1_000_000 + "\t" + best / ifClauses);
+        }
+    }
+
+    private static String rule(int ifClauses) {
+        StringBuilder builder = new StringBuilder("Yes := TRUE;\np {\n");
+        for (int i = 0; i < ifClauses; i++) {
+            builder.append("\twidth: ").append(i).append("px;\n");
+            if (i % 2 == 0) {
+                builder.append("\tif[Yes] {\n\t\theight: ").append(i).append("px;\n\t}\n");
+            } else {
+                builder.append("\tif[FALSE] {\n\t\theight: 1px;\n\t} else {\n\t\tcolor: #00ff00;\n\t}\n");
+            }
+        }
+        return builder.append("}\n").toString();
+    }
+}
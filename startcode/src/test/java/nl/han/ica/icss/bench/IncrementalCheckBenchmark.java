@@ -0,0 +1,50 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.checker.IncrementalChecker;
+import nl.han.ica.icss.parser.IncrementalParser;
+
+/**
+ * Edits one value in the middle of a large stylesheet over and over, and compares checking the edited AST
+ * with {@link IncrementalChecker} to a full check. The edit itself is parsed with {@link IncrementalParser}
+ * and not measured.
+ * <p>
+ * Arguments: number of rules (default 20000) and number of measured edits (default 200).
+ */
+public class IncrementalCheckBenchmark {
+
+    public static void main(String[] args) {
+        int rules = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        IncrementalParser parser = new IncrementalParser();
+        parser.parse(BenchmarkCorpus.stylesheet(rules));
+        IncrementalChecker checker = new IncrementalChecker();
+        checker.check(parser.getAST());
+        int offset = parser.getText().indexOf(".c" + rules / 2 + " ");
+        offset = parser.getText().indexOf("%", offset) - 2;
+
+        long incremental = Long.MAX_VALUE;
+        long full = Long.MAX_VALUE;
+        for (int i = 0; i < edits + 50; i++) {
+            //change the height of one rule between two values of the same length
+            parser.applyEdit(offset, 1, String.valueOf(i % 10));
+
+            long start = System.nanoTime();
+            checker.update(parser.getAST(), parser.getFirstReparsedStatement(), parser.getReplacedStatements());
+            long checked = System.nanoTime();
+            if (i % 10 == 0) {
+                new Checker().check(parser.getAST());
+                full = Math.min(full, System.nanoTime() - checked);
+            }
+
+            //the first edits are warm-up
+            if (i >= 50) {
+                incremental = Math.min(incremental, checked - start);
+            }
+        }
+
+        System.out.println("rules\tincremental check(us)\tchecked statements\tfull check(us)");
+        System.out.println(rules + "\t" + incremental / 1000 + "\t" + checker.getCheckedStatements() + "\t" + full / 1000);
+    }
+}
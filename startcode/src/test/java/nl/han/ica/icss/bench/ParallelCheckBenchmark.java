@@ -0,0 +1,57 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.FlatAST;
+import nl.han.ica.icss.checker.Checker;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks one large stylesheet on one thread and in parallel on pools of growing size.
+ * <p>
+ * Arguments: number of rules (default 100000) followed by pool sizes (default 1 2 4 and the number of processors).
+ */
+public class ParallelCheckBenchmark {
+
+    public static void main(String[] args) {
+        int rules = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int processors = Runtime.getRuntime().availableProcessors();
+        String[] threads = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length)
+                : new String[]{"1", "2", "4", String.valueOf(processors)};
+
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(BenchmarkCorpus.stylesheet(rules));
+        FlatAST flat = FlatAST.fromAST(pipeline.getAST());
+
+        long sequential = best(flat, null);
+        System.out.println("threads\tcheck(ms)\tspeed-up");
+        System.out.println("-\t" + sequential / 1_000_000 + "\t1.0");
+        for (String count : threads) {
+            ForkJoinPool pool = new ForkJoinPool(Integer.parseInt(count));
+            long time = best(flat, pool);
+            pool.shutdown();
+            System.out.println(count + "\t" + time / 1_000_000 + "\t" + String.format("%.1f", (double) sequential / time));
+        }
+    }
+
+    //fastest of five runs after three warm-up runs, on a fresh copy of the AST each time
+    private static long best(FlatAST flat, ForkJoinPool pool) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 8; run++) {
+            AST ast = flat.toAST();
+            long start = System.nanoTime();
+            if (pool == null) {
+                new Checker().check(ast);
+            } else {
+                new Checker().check(ast, pool);
+            }
+            long time = System.nanoTime() - start;
+            if (run >= 3) {
+                best = Math.min(best, time);
+            }
+        }
+        return best;
+    }
+}
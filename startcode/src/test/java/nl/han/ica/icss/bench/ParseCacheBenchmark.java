@@ -0,0 +1,60 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTReader;
+import nl.han.ica.icss.parser.ParseCache;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares parsing a stylesheet with loading its AST from a {@link ParseCache}.
+ * <p>
+ * The parse uses the fastest pipeline settings (two-stage, single pass, memory-mapped source). A cache hit is
+ * measured twice: only reading the entry, and the whole {@link Pipeline#parsePath(Path)} including hashing
+ * the source.
+ * <p>
+ * Arguments are numbers of rules, the default is 1000 10000 100000.
+ */
+public class ParseCacheBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = args.length > 0 ? args : new String[]{"1000", "10000", "100000"};
+        Path directory = Files.createTempDirectory("icss-cache-");
+        ParseCache cache = new ParseCache(directory);
+
+        System.out.println("rules\tsource(KB)\tentry(KB)\tparse(ms)\tread entry(ms)\tcached parsePath(ms)");
+        for (String size : sizes) {
+            Path source = Files.createTempFile("icss-bench-", ".icss");
+            Files.writeString(source, BenchmarkCorpus.stylesheet(Integer.parseInt(size)));
+            String key = ParseCache.key(source);
+            Path entry = directory.resolve(key + ".ast");
+
+            long parse = BenchmarkCorpus.bestOf(5, () -> pipeline(null).parsePath(source));
+            cache.store(key, parse(source));
+            long read = BenchmarkCorpus.bestOf(5, () -> ASTReader.read(entry));
+            long cached = BenchmarkCorpus.bestOf(5, () -> pipeline(cache).parsePath(source));
+
+            System.out.println(size + "\t" + Files.size(source) / 1024 + "\t" + Files.size(entry) / 1024 + "\t"
+                    + parse + "\t" + read + "\t" + cached);
+            Files.delete(source);
+            Files.delete(entry);
+        }
+        Files.delete(directory);
+    }
+
+    private static Pipeline pipeline(ParseCache cache) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.setTwoStageParsing(true);
+        pipeline.setSinglePassParsing(true);
+        pipeline.setParseCache(cache);
+        return pipeline;
+    }
+
+    private static AST parse(Path source) throws Exception {
+        Pipeline pipeline = pipeline(null);
+        pipeline.parsePath(source);
+        return pipeline.getAST();
+    }
+}
@@ -0,0 +1,79 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.ASTNode;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.transforms.Evaluator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Measures the time per AST node of the checker, evaluator and generator, without parsing.
+ * Each pass runs on fresh copies of the same parsed stylesheet, after a warm-up so the passes are compiled.
+ * <p>
+ * Arguments: number of rules (default 20000) and number of measured runs (default 20).
+ */
+public class PassBenchmark {
+
+    public static void main(String[] args) {
+        int rules = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        String input = BenchmarkCorpus.stylesheet(rules);
+        int nodes = countNodes(parse(input));
+
+        //warm-up
+        for (int i = 0; i < 10; i++) {
+            runPasses(input, new long[3]);
+        }
+
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int i = 0; i < runs; i++) {
+            long[] times = new long[3];
+            runPasses(input, times);
+            for (int pass = 0; pass < 3; pass++) {
+                best[pass] = Math.min(best[pass], times[pass]);
+            }
+        }
+
+        System.out.println("nodes\tcheck(ns/node)\ttransform(ns/node)\tgenerate(ns/node)");
+        System.out.println(nodes + "\t" + best[0] / nodes + "\t" + best[1] / nodes + "\t" + best[2] / nodes);
+    }
+
+    private static void runPasses(String input, long[] times) {
+        AST ast = parse(input);
+        long start = System.nanoTime();
+        new Checker().check(ast);
+        long checked = System.nanoTime();
+        new Evaluator().apply(ast);
+        long transformed = System.nanoTime();
+        new Generator().generate(ast);
+        long generated = System.nanoTime();
+
+        times[0] = checked - start;
+        times[1] = transformed - checked;
+        times[2] = generated - transformed;
+    }
+
+    private static AST parse(String input) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(input);
+        return pipeline.getAST();
+    }
+
+    private static int countNodes(AST ast) {
+        int count = 0;
+        Deque<ASTNode> pending = new ArrayDeque<>();
+        pending.push(ast.root);
+        while (!pending.isEmpty()) {
+            ASTNode node = pending.pop();
+            count++;
+            for (int i = 0; i < node.getChildCount(); i++) {
+                pending.push(node.getChild(i));
+            }
+        }
+        return count;
+    }
+}
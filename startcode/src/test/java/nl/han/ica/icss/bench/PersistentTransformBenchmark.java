@@ -0,0 +1,52 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.FlatAST;
+import nl.han.ica.icss.checker.Diagnostics;
+import nl.han.ica.icss.checker.Resolver;
+import nl.han.ica.icss.transforms.Evaluator;
+import nl.han.ica.icss.transforms.PersistentEvaluator;
+
+/**
+ * Compares ways to evaluate one checked AST more than once: copying it and evaluating the copy in place
+ * (the only option with {@link Evaluator}), and evaluating it with {@link PersistentEvaluator}, which leaves it
+ * unchanged and copies only the nodes above a change.
+ * <p>
+ * Arguments: number of rules (default 20000) and number of measured runs (default 20).
+ */
+public class PersistentTransformBenchmark {
+
+    public static void main(String[] args) {
+        int rules = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(BenchmarkCorpus.stylesheet(rules));
+        pipeline.check();
+        AST checked = pipeline.getAST();
+        FlatAST flat = FlatAST.fromAST(checked);
+
+        long copyAndApply = Long.MAX_VALUE;
+        long persistent = Long.MAX_VALUE;
+        for (int i = 0; i < runs + 10; i++) {
+            long start = System.nanoTime();
+            AST copy = flat.toAST();
+            //the copy has new references, they need their bindings again
+            new Resolver().resolve(copy, new Diagnostics());
+            new Evaluator().apply(copy);
+            long applied = System.nanoTime();
+            new PersistentEvaluator().evaluate(checked);
+            long evaluated = System.nanoTime();
+
+            //the first runs are warm-up
+            if (i >= 10) {
+                copyAndApply = Math.min(copyAndApply, applied - start);
+                persistent = Math.min(persistent, evaluated - applied);
+            }
+        }
+
+        System.out.println("rules\tcopy + in place(ms)\tpersistent(ms)");
+        System.out.println(rules + "\t" + copyAndApply / 1_000_000 + "\t" + persistent / 1_000_000);
+    }
+}
@@ -0,0 +1,52 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.parser.ByteBufferCharStream;
+import nl.han.ica.icss.parser.ICSSLexer;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares loading and lexing a file through a String (the GUI path) with lexing a memory-mapped file.
+ * <p>
+ * Arguments are input sizes in megabytes, the default is 1 16 128. Inputs of 1 GB need a heap of a few GB
+ * for the String path.
+ */
+public class SourceLoadingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = args.length > 0 ? args : new String[]{"1", "16", "128"};
+
+        System.out.println("size(MB)\tstring load(ms)\tstring load+lex(ms)\tmapped load(ms)\tmapped load+lex(ms)");
+        for (String size : sizes) {
+            Path file = BenchmarkCorpus.writeStylesheet(Long.parseLong(size) * 1024 * 1024);
+
+            long stringLoad = BenchmarkCorpus.bestOf(3, () -> loadString(file));
+            long stringTotal = BenchmarkCorpus.bestOf(3, () -> lex(loadString(file)));
+            long mappedLoad = BenchmarkCorpus.bestOf(3, () -> ByteBufferCharStream.fromPath(file));
+            long mappedTotal = BenchmarkCorpus.bestOf(3, () -> lex(ByteBufferCharStream.fromPath(file)));
+
+            System.out.println(size + "\t" + stringLoad + "\t" + stringTotal + "\t" + mappedLoad + "\t" + mappedTotal);
+            Files.delete(file);
+        }
+    }
+
+    private static CharStream loadString(Path file) throws IOException {
+        return CharStreams.fromString(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    private static int lex(CharStream input) {
+        ICSSLexer lexer = new ICSSLexer(input);
+        int tokens = 0;
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+            token.getText();
+            tokens++;
+        }
+        return tokens;
+    }
+}
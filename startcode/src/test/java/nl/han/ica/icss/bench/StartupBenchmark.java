@@ -0,0 +1,62 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.cli.BatchCompiler;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures startup-to-first-output of single-file compiles: each run starts a new JVM with the
+ * {@link BatchCompiler} and waits until the .css file is written and the JVM exits.
+ * <p>
+ * Arguments: number of rules in the compiled file (default 20), further arguments are passed to the compiler.
+ * A run with and a run without an option show whether it helps startup.
+ */
+public class StartupBenchmark {
+
+    private static final int RUNS = 15;
+
+    public static void main(String[] args) throws Exception {
+        int rules = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        Path source = Files.createTempFile("icss-startup-", ".icss");
+        Files.writeString(source, BenchmarkCorpus.stylesheet(rules), StandardCharsets.US_ASCII);
+
+        List<String> options = Arrays.asList(args).subList(Math.min(args.length, 1), args.length);
+
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < RUNS; i++) {
+            times.add(compileInNewJvm(source, options));
+        }
+        Files.delete(source);
+        Files.deleteIfExists(Path.of(source.toString().replace(".icss", ".css")));
+
+        System.out.println("rules\toptions\tmedian(ms)");
+        System.out.println(rules + "\t" + String.join(" ", options) + "\t" + median(times));
+    }
+
+    private static long compileInNewJvm(Path source, List<String> options) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+                BatchCompiler.class.getName()));
+        command.addAll(options);
+        command.add(source.toString());
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Compile failed");
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static long median(List<Long> times) {
+        List<Long> sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
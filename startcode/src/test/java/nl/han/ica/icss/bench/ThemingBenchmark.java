@@ -0,0 +1,62 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.CompiledStylesheet;
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.Literal;
+import nl.han.ica.icss.ast.literals.BoolLiteral;
+import nl.han.ica.icss.ast.literals.ColorLiteral;
+import nl.han.ica.icss.ast.literals.PixelLiteral;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Renders the benchmark stylesheet for a number of tenants that each have their own values for its global
+ * variables: with a full parse, check, transform and generate per tenant, and with one {@link CompiledStylesheet}
+ * that is rendered with the values of each tenant, on one thread and on all processors.
+ * <p>
+ * Arguments: number of rules (default 2000) and number of tenants (default 200).
+ */
+public class ThemingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rules = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int tenants = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        String input = BenchmarkCorpus.stylesheet(rules);
+
+        long pipeline = BenchmarkCorpus.bestOf(3, () -> {
+            for (int tenant = 0; tenant < tenants; tenant++) {
+                compile(input.replace("BaseWidth := 10px", "BaseWidth := " + tenant + "px")
+                        .replace("UseLinkColor := TRUE", "UseLinkColor := " + (tenant % 2 == 0 ? "TRUE" : "FALSE")));
+            }
+        });
+
+        long start = System.nanoTime();
+        CompiledStylesheet stylesheet = CompiledStylesheet.compile(input);
+        long compiled = (System.nanoTime() - start) / 1_000_000;
+        long rendered = BenchmarkCorpus.bestOf(3, () -> {
+            for (int tenant = 0; tenant < tenants; tenant++) {
+                stylesheet.render(values(tenant));
+            }
+        });
+        long parallel = BenchmarkCorpus.bestOf(3, () ->
+                IntStream.range(0, tenants).parallel().forEach(tenant -> stylesheet.render(values(tenant))));
+
+        System.out.println("rules\ttenants\tpipeline(ms)\tcompile(ms)\trender(ms)\tparallel render(ms)");
+        System.out.println(rules + "\t" + tenants + "\t" + pipeline + "\t" + compiled + "\t" + rendered + "\t" + parallel);
+    }
+
+    private static Map<String, Literal> values(int tenant) {
+        return Map.of("BaseWidth", PixelLiteral.of(tenant),
+                "LinkColor", ColorLiteral.of("#ff0000"),
+                "UseLinkColor", BoolLiteral.of(tenant % 2 == 0));
+    }
+
+    private static String compile(String input) {
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(input);
+        pipeline.check();
+        pipeline.transform();
+        return pipeline.generate();
+    }
+}
@@ -0,0 +1,63 @@
+package nl.han.ica.icss.bench;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.FlatAST;
+import nl.han.ica.icss.checker.Checker;
+import nl.han.ica.icss.transforms.Evaluator;
+
+/**
+ * Checks and transforms a stylesheet in which every value is a variable, declared globally, in the rule or
+ * in nested if-clauses, so most of the time goes to finding variables.
+ * <p>
+ * Arguments: number of rules (default 20000) and number of measured runs (default 10).
+ */
+public class VariableLookupBenchmark {
+
+    public static void main(String[] args) {
+        int rules = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Pipeline pipeline = new Pipeline();
+        pipeline.parseString(stylesheet(rules));
+        FlatAST flat = FlatAST.fromAST(pipeline.getAST());
+
+        long check = Long.MAX_VALUE;
+        long transform = Long.MAX_VALUE;
+        for (int i = 0; i < runs + 5; i++) {
+            AST ast = flat.toAST();
+            long start = System.nanoTime();
+            new Checker().check(ast);
+            long checked = System.nanoTime();
+            new Evaluator().apply(ast);
+            long transformed = System.nanoTime();
+
+            //the first runs are warm-up
+            if (i >= 5) {
+                check = Math.min(check, checked - start);
+                transform = Math.min(transform, transformed - checked);
+            }
+        }
+
+        System.out.println("rules\tcheck(ms)\ttransform(ms)");
+        System.out.println(rules + "\t" + check / 1_000_000 + "\t" + transform / 1_000_000);
+    }
+
+    private static String stylesheet(int rules) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            builder.append("Global").append(i).append(" := ").append(i).append("px;\n");
+        }
+        builder.append("Enabled := TRUE;\n");
+        for (int i = 0; i < rules; i++) {
+            builder.append(".c").append(i).append(" {\n")
+                    .append("\tLocal := Global").append(i % 20).append(" + 1px;\n")
+                    .append("\twidth: Local + Global").append((i + 7) % 20).append(";\n")
+                    .append("\tif[Enabled] {\n\t\tInner := Local * 2;\n")
+                    .append("\t\tif[Enabled] {\n\t\t\theight: Inner + Global0 - Local;\n\t\t}\n")
+                    .append("\t} else {\n\t\theight: Global1;\n\t}\n")
+                    .append("}\n");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.Operation;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.VariableReference;
+import nl.han.ica.icss.ast.types.ExpressionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckerTest {
+
+	@Test
+	void testCheckBindsReferencesToDeclarations() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("A := 1px;\nB := 2px;\np {\n\tB := 3px;\n\tif[TRUE] {\n\t\tC := B;\n\t} else {\n"
+				+ "\t\twidth: C;\n\t}\n\twidth: A + B;\n}\n");
+		assertFalse(pipeline.check());
+		//the else body does not see the variables of the if body
+		assertEquals(List.of("ERROR: Variable C not declared"), pipeline.getErrors());
+
+		Stylerule rule = (Stylerule) pipeline.getAST().root.body.get(2);
+		Operation sum = (Operation) ((Declaration) rule.body.get(2)).expression;
+		VariableReference a = (VariableReference) sum.lhs;
+		VariableReference b = (VariableReference) sum.rhs;
+		assertEquals(0, a.scopeLevel);
+		assertEquals(0, a.slot);
+		//the B of the rule hides the global one
+		assertEquals(1, b.scopeLevel);
+		assertEquals(0, b.slot);
+	}
+
+	@Test
+	void testCheckValidatesPropertyValueTypes() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("p {\n\twidth: #ff0000;\n\topacity: 50%;\n\tmargin-top: 2 * 3px;\n\tz-index: TRUE;\n}\n");
+		assertFalse(pipeline.check());
+		assertEquals(List.of("ERROR: Property width does not accept a color value",
+				"ERROR: Property z-index does not accept a bool value"), pipeline.getErrors());
+	}
+
+	@Test
+	void testCheckerKeepsTheTypeOfEachExpression() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("Width := 10px;\np {\n\twidth: 2 * Width + 1%;\n}\n");
+		Checker checker = new Checker();
+		assertEquals(1, checker.check(pipeline.getAST()).size());
+
+		Stylerule rule = (Stylerule) pipeline.getAST().root.body.get(1);
+		Operation sum = (Operation) ((Declaration) rule.body.get(0)).expression;
+		Operation product = (Operation) sum.lhs;
+		assertEquals(ExpressionType.SCALAR, checker.typeOf(product.lhs));
+		assertEquals(ExpressionType.PIXEL, checker.typeOf(product.rhs));
+		assertEquals(ExpressionType.PIXEL, checker.typeOf(product));
+		assertEquals(ExpressionType.PERCENTAGE, checker.typeOf(sum.rhs));
+		//an operation between different types takes the type of its left operand
+		assertEquals(ExpressionType.PIXEL, checker.typeOf(sum));
+	}
+
+	@Test
+	void testInvalidValueIsReportedOnce() {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString("C := #ffffff;\na {\n\twidth: C + 2px;\n}\n");
+		assertFalse(pipeline.check());
+		assertEquals(List.of("ERROR: Operations with colors are not allowed"), pipeline.getErrors());
+	}
+}
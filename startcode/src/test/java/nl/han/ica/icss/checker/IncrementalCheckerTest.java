@@ -0,0 +1,59 @@
+package nl.han.ica.icss.checker;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.parser.IncrementalParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalCheckerTest {
+
+	List<String> checkErrors(String input) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		pipeline.check();
+		return pipeline.getErrors();
+	}
+
+	Diagnostics update(IncrementalChecker checker, IncrementalParser parser) {
+		return checker.update(parser.getAST(), parser.getFirstReparsedStatement(), parser.getReplacedStatements());
+	}
+
+	List<String> errorsOf(Diagnostics diagnostics) {
+		return diagnostics.getAll().stream().map(Diagnostic::toString).collect(Collectors.toList());
+	}
+
+	@Test
+	void testIncrementalCheckMatchesFullCheck() {
+		IncrementalParser parser = new IncrementalParser();
+		IncrementalChecker checker = new IncrementalChecker();
+		String text = "Size := 10px;\nOn := TRUE;\np {\n\twidth: Size;\n}\na {\n\tif[On] {\n\t\theight: Size * 2;\n\t}\n}\n"
+				+ "b {\n\tcolor: #ff0000;\n}\n";
+		parser.parse(text);
+		assertEquals(0, checker.check(parser.getAST()).size());
+		assertEquals(5, checker.getCheckedStatements());
+
+		//a change inside a rule checks only that rule
+		parser.applyEdit(text.indexOf("#ff0000"), 7, "Size");
+		assertEquals(checkErrors(parser.getText()), errorsOf(update(checker, parser)));
+		assertEquals(1, checker.getCheckedStatements());
+
+		//a new type for a global checks the rules that use it
+		text = parser.getText();
+		parser.applyEdit(text.indexOf("10px"), 4, "#00ff00");
+		assertEquals(checkErrors(parser.getText()), errorsOf(update(checker, parser)));
+		assertEquals(4, checker.getCheckedStatements());
+
+		//a second declaration in front of another, then the first one removed
+		text = parser.getText();
+		parser.applyEdit(text.indexOf("On :="), 0, "On := 1px;\n");
+		assertEquals(checkErrors(parser.getText()), errorsOf(update(checker, parser)));
+		text = parser.getText();
+		parser.applyEdit(text.indexOf("On := TRUE;"), 11, "");
+		assertEquals(checkErrors(parser.getText()), errorsOf(update(checker, parser)));
+		assertFalse(parser.getText().contains("TRUE"));
+	}
+}
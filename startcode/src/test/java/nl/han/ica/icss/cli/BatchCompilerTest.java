@@ -0,0 +1,70 @@
+package nl.han.ica.icss.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCompilerTest {
+
+	static final String VALID = "Width := 10px;\np {\n\twidth: Width * 2;\n}\n";
+	static final String VALID_CSS = "p {\n  width: 20px;\n}\n\n";
+
+	Path write(Path file, String content) throws IOException {
+		Files.createDirectories(file.getParent());
+		return Files.writeString(file, content);
+	}
+
+	@Test
+	void testDirectoryIsCompiledIntoOutputDirectory(@TempDir Path directory) throws IOException {
+		Path sources = directory.resolve("src");
+		write(sources.resolve("a.icss"), VALID);
+		write(sources.resolve("sub/b.icss"), VALID);
+		write(sources.resolve("notes.txt"), "not a stylesheet");
+		Path output = directory.resolve("out");
+
+		assertEquals(0, BatchCompiler.execute("-o", output.toString(), "-j", "2", sources.toString()));
+		//the layout below the input directory is mirrored
+		assertEquals(VALID_CSS, Files.readString(output.resolve("a.css")));
+		assertEquals(VALID_CSS, Files.readString(output.resolve("sub/b.css")));
+		assertFalse(Files.exists(output.resolve("notes.css")));
+	}
+
+	@Test
+	void testGlobWritesNextToTheSources(@TempDir Path directory) throws IOException {
+		write(directory.resolve("a.icss"), VALID);
+		write(directory.resolve("sub/b.icss"), VALID);
+
+		assertEquals(0, BatchCompiler.execute(directory + "/sub/*.icss"));
+		assertEquals(VALID_CSS, Files.readString(directory.resolve("sub/b.css")));
+		assertFalse(Files.exists(directory.resolve("a.css")));
+	}
+
+	@Test
+	void testFailingFileGivesExitCode1(@TempDir Path directory) throws IOException {
+		write(directory.resolve("good.icss"), VALID);
+		write(directory.resolve("bad.icss"), "p {\n\twidth: Undeclared;\n}\n");
+
+		assertEquals(1, BatchCompiler.execute(directory.toString()));
+		assertTrue(Files.exists(directory.resolve("good.css")));
+		assertFalse(Files.exists(directory.resolve("bad.css")));
+	}
+
+	@Test
+	void testWrongArgumentsGiveExitCode2(@TempDir Path directory) throws IOException {
+		Path source = write(directory.resolve("style.icss"), VALID);
+		Path text = write(directory.resolve("style.txt"), VALID);
+
+		assertEquals(2, BatchCompiler.execute("-j", "0", source.toString()));
+		assertEquals(2, BatchCompiler.execute("-j", "abc", source.toString()));
+		assertEquals(2, BatchCompiler.execute(text.toString()));
+		assertEquals(2, BatchCompiler.execute(directory.resolve("missing.icss").toString()));
+		assertEquals(2, BatchCompiler.execute());
+		assertFalse(Files.exists(directory.resolve("style.css")));
+		assertFalse(Files.exists(directory.resolve("styl.css")));
+	}
+}
@@ -0,0 +1,96 @@
+package nl.han.ica.icss.parser;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalParserTest {
+
+	String readTestFile(String resource) throws IOException {
+		ClassLoader classLoader = this.getClass().getClassLoader();
+		try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	AST fullParse(String text) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(text);
+		return pipeline.getAST();
+	}
+
+	void assertEdit(IncrementalParser parser, String find, int removedLength, String insertedText) {
+		String before = parser.getText();
+		int offset = before.indexOf(find);
+		String expected = before.substring(0, offset) + insertedText + before.substring(offset + removedLength);
+
+		assertTrue(parser.applyEdit(offset, removedLength, insertedText));
+		assertEquals(expected, parser.getText());
+		assertEquals(fullParse(expected), parser.getAST());
+	}
+
+	@Test
+	void testParseMatchesFixtures() throws IOException {
+		IncrementalParser parser = new IncrementalParser();
+
+		assertTrue(parser.parse(readTestFile("level3.icss")));
+		assertEquals(Fixtures.uncheckedLevel3(), parser.getAST());
+	}
+
+	@Test
+	void testEditsOnlyReparseTouchedStatements() throws IOException {
+		IncrementalParser parser = new IncrementalParser();
+		parser.parse(readTestFile("level3.icss"));
+		AST previous = parser.getAST();
+
+		//change a value inside the "a" rule
+		assertEdit(parser, "LinkColor;\n}", 9, "#00ff00");
+		assertEquals(1, parser.getReparsedStatements());
+		assertSame(previous.root.body.get(4), parser.getAST().root.body.get(4));
+		assertSame(previous.root.body.get(6), parser.getAST().root.body.get(6));
+
+		//insert a new rule between two rules, remove a variable and edit whitespace only
+		assertEdit(parser, "#menu", 0, "h1 { width: 1px; }\n");
+		assertEdit(parser, "UseLinkColor := FALSE;", 22, "");
+		assertEdit(parser, "\n.menu", 0, "\n\n");
+		assertEquals(0, parser.getReparsedStatements());
+	}
+
+	@Test
+	void testSyntaxErrorsAreReportedLikeAFullParse() throws IOException {
+		IncrementalParser parser = new IncrementalParser();
+		parser.parse(readTestFile("level3.icss"));
+
+		String text = parser.getText();
+		assertFalse(parser.applyEdit(text.indexOf("20px"), 4, "#ffffff +"));
+		assertFalse(parser.getErrors().isEmpty());
+
+		//the next edit that fixes the error parses the whole document again
+		assertTrue(parser.applyEdit(parser.getText().indexOf("#ffffff +"), 9, "20px"));
+		assertEquals(Fixtures.uncheckedLevel3(), parser.getAST());
+	}
+
+	@Test
+	void testTrailingInputIsIgnoredLikeAFullParse() {
+		//the stylesheet rule does not end at EOF, so a full parse stops after the last statement without an error
+		String text = "A := 1px;\nB := A; * 2;\np {\n\twidth: B;\n}\n";
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(text);
+		assertTrue(pipeline.isParsed());
+
+		IncrementalParser parser = new IncrementalParser();
+		assertTrue(parser.parse(text));
+		assertTrue(parser.getErrors().isEmpty());
+		assertEquals(pipeline.getAST(), parser.getAST());
+
+		//an edit after such a parse parses the whole document again
+		assertEdit(parser, " * 2;", 5, "");
+		assertEquals(3, parser.getReparsedStatements());
+	}
+}
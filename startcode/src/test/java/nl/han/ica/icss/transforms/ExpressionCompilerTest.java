@@ -0,0 +1,39 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Declaration;
+import nl.han.ica.icss.ast.Operation;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.ast.literals.ScalarLiteral;
+import nl.han.ica.icss.generator.Generator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionCompilerTest {
+
+	AST checkedAST(String input) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		assertTrue(pipeline.check(), input);
+		return pipeline.getAST();
+	}
+
+	String evaluate(AST ast) {
+		return new Generator().generate(new PersistentEvaluator().evaluate(ast));
+	}
+
+	@Test
+	void testChangedOperandIsCompiledAgain() {
+		AST ast = checkedAST("W := 2px;\np {\n\twidth: W * 3 + 1px;\n}\n");
+		assertEquals("p {\n  width: 7px;\n}\n\n", evaluate(ast));
+
+		//a change below the top of the expression that keeps its type
+		Stylerule rule = (Stylerule) ast.root.body.get(1);
+		Operation product = (Operation) ((Operation) ((Declaration) rule.body.get(0)).expression).lhs;
+		product.rhs = ScalarLiteral.of(4);
+		product.childrenChanged();
+		assertEquals("p {\n  width: 9px;\n}\n\n", evaluate(ast));
+	}
+}
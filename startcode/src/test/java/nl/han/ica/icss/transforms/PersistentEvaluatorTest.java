@@ -0,0 +1,78 @@
+package nl.han.ica.icss.transforms;
+
+import nl.han.ica.icss.Pipeline;
+import nl.han.ica.icss.ast.AST;
+import nl.han.ica.icss.ast.Stylerule;
+import nl.han.ica.icss.generator.Generator;
+import nl.han.ica.icss.parser.Fixtures;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentEvaluatorTest {
+
+	//if-clause bodies take the place of the if-clause
+	static final String LEVEL3_CSS = "p {\n  background-color: #ffffff;\n  width: 500px;\n  color: #124532;\n"
+			+ "  background-color: #000000;\n  height: 20px;\n}\n\na {\n  color: #ff0000;\n}\n\n"
+			+ "#menu {\n  width: 520px;\n}\n\n.menu {\n  color: #000000;\n  background-color: #ff0000;\n}\n\n";
+
+	String readTestFile(String resource) throws IOException {
+		ClassLoader classLoader = this.getClass().getClassLoader();
+		try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	String compile(String input) {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(input);
+		assertTrue(pipeline.check(), input);
+		pipeline.transform();
+		return pipeline.generate();
+	}
+
+	@Test
+	void testPersistentTransformKeepsTheCheckedAST() throws IOException {
+		AST[] fixtures = {Fixtures.uncheckedLevel0(), Fixtures.uncheckedLevel1(),
+				Fixtures.uncheckedLevel2(), Fixtures.uncheckedLevel3()};
+		for (int level = 0; level < fixtures.length; level++) {
+			String input = readTestFile("level" + level + ".icss");
+			Pipeline pipeline = new Pipeline();
+			pipeline.setPersistentTransform(true);
+			pipeline.parseString(input);
+			assertTrue(pipeline.check());
+			pipeline.transform();
+
+			assertEquals(compile(input), pipeline.generate());
+			assertEquals(fixtures[level], pipeline.getUntransformedAST());
+		}
+	}
+
+	@Test
+	void testPersistentTransformSharesTheCheckedAST() throws IOException {
+		Pipeline pipeline = new Pipeline();
+		pipeline.parseString(readTestFile("level3.icss"));
+		assertTrue(pipeline.check());
+		AST checked = pipeline.getAST();
+
+		//several threads evaluate and generate from the same tree at once
+		List<String> outputs = IntStream.range(0, 8).parallel()
+				.mapToObj(i -> new Generator().generate(new PersistentEvaluator().evaluate(checked)))
+				.collect(Collectors.toList());
+		outputs.forEach(output -> assertEquals(LEVEL3_CSS, output));
+		assertEquals(Fixtures.uncheckedLevel3(), checked);
+
+		//nodes without expressions to evaluate are not copied
+		AST evaluated = new PersistentEvaluator().evaluate(checked);
+		assertSame(checked.root.body.get(0), evaluated.root.body.get(0));
+		Stylerule rule = (Stylerule) evaluated.root.body.get(4);
+		assertSame(((Stylerule) checked.root.body.get(4)).selectors.get(0), rule.selectors.get(0));
+	}
+}